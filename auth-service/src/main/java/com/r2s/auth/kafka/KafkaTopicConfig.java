@@ -0,0 +1,22 @@
+package com.r2s.auth.kafka;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import com.r2s.core.constant.KafkaTopics;
+
+@Configuration
+public class KafkaTopicConfig {
+
+	// KafkaAdmin tao topic neu chua co, hoac tang so partition neu dang it hon
+	// event keyed theo userId -> moi user luon vao 1 partition -> giu thu tu theo user
+	// luu y: tang partition se doi partition cua key, nen doi backlog cu xu ly xong truoc
+	@Bean
+	NewTopic userRegisteredTopic(@Value("${kafka.topics.user-registered.partitions:6}") int partitions,
+			@Value("${kafka.topics.user-registered.replicas:1}") short replicas) {
+		return TopicBuilder.name(KafkaTopics.USER_REGISTERED).partitions(partitions).replicas(replicas).build();
+	}
+}
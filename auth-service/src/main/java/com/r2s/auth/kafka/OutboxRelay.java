@@ -0,0 +1,179 @@
+package com.r2s.auth.kafka;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.r2s.core.entity.OutboxEvent;
+import com.r2s.core.repository.OutboxEventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains {@code outbox_events} to Kafka in id order, keyed by
+ * {@link OutboxEvent#getMessageKey()}. Only one instance relays at a time
+ * ({@link OutboxRelayLock}), and within a batch the events of a key are sent
+ * one after another: the next one only after the broker acknowledged the
+ * previous, and none after the first failure, so per-key order holds across
+ * retries. Delivered rows are deleted afterwards (at-least-once).
+ * <p>
+ * Failures the broker may recover from (timeouts, retriable Kafka errors) are
+ * retried indefinitely. Other failures count towards
+ * {@code outbox.relay.max-attempts}; past that the key is parked and skipped,
+ * together with any later event for it, until an operator resolves it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+	private final OutboxEventRepository outboxEventRepository;
+	private final UserKafkaProducer producer;
+	private final ObjectMapper objectMapper;
+	private final OutboxRelayLock relayLock;
+
+	@Value("${outbox.relay.batch-size:100}")
+	private int batchSize = 100;
+
+	@Value("${outbox.relay.send-timeout-ms:10000}")
+	private long sendTimeoutMs = 10000;
+
+	@Value("${outbox.relay.max-attempts:10}")
+	private int maxAttempts = 10;
+
+	@Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+	public void relay() {
+		this.relayLock.runExclusively(() -> {
+			// batch day -> co the con nua, gui tiep; loi hoac het -> cho lan chay sau
+			int relayed;
+			do {
+				relayed = this.relayBatch();
+			} while (relayed == this.batchSize);
+		});
+	}
+
+	int relayBatch() {
+		List<OutboxEvent> batch = this.outboxEventRepository.findNextBatch(this.batchSize);
+		if (batch.isEmpty()) {
+			return 0;
+		}
+
+		Map<String, Deque<OutboxEvent>> pending = new LinkedHashMap<>();
+		for (OutboxEvent event : batch) {
+			pending.computeIfAbsent(event.getMessageKey(), key -> new ArrayDeque<>()).add(event);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.sendTimeoutMs);
+		List<OutboxEvent> delivered = new ArrayList<>(batch.size());
+		List<OutboxEvent> failed = new ArrayList<>();
+		List<OutboxEvent> poisoned = new ArrayList<>();
+		while (!pending.isEmpty()) {
+			// moi luot: event dau tien cua moi key, cac key gui song song
+			Map<OutboxEvent, CompletableFuture<SendResult<String, Object>>> round = new LinkedHashMap<>();
+			for (Deque<OutboxEvent> events : pending.values()) {
+				OutboxEvent head = events.peekFirst();
+				round.put(head, this.send(head));
+			}
+			for (Map.Entry<OutboxEvent, CompletableFuture<SendResult<String, Object>>> sent : round.entrySet()) {
+				OutboxEvent event = sent.getKey();
+				Throwable error = this.await(sent.getValue(), deadline);
+				if (error == null) {
+					delivered.add(event);
+					Deque<OutboxEvent> events = pending.get(event.getMessageKey());
+					events.removeFirst();
+					if (events.isEmpty()) {
+						pending.remove(event.getMessageKey());
+					}
+					continue;
+				}
+				// dung key nay: cac event sau cua key cho lan chay sau
+				pending.remove(event.getMessageKey());
+				failed.add(event);
+				log.error("Outbox relay: failed to send event id={} topic={} key={}: {}", event.getId(),
+						event.getTopic(), event.getMessageKey(), error.getMessage());
+				if (!isTransient(error)) {
+					poisoned.add(event);
+				}
+			}
+		}
+
+		if (!delivered.isEmpty()) {
+			this.outboxEventRepository.deleteAllByIdInBatch(delivered.stream().map(OutboxEvent::getId).toList());
+		}
+		if (failed.isEmpty()) {
+			log.debug("Outbox relay: delivered {} events", delivered.size());
+			return batch.size();
+		}
+		this.recordFailures(poisoned);
+		log.warn("Outbox relay: {} of {} events delivered, {} keys will be retried", delivered.size(), batch.size(),
+				failed.size());
+		return 0;
+	}
+
+	private void recordFailures(List<OutboxEvent> poisoned) {
+		if (poisoned.isEmpty()) {
+			return;
+		}
+		this.outboxEventRepository.incrementAttempts(poisoned.stream().map(OutboxEvent::getId).toList());
+		List<String> parked = poisoned.stream().filter(event -> event.getAttempts() + 1 >= this.maxAttempts)
+				.map(OutboxEvent::getMessageKey).toList();
+		if (!parked.isEmpty()) {
+			this.outboxEventRepository.parkKeys(parked, Instant.now());
+			log.error("Outbox relay: parked keys {} after {} failed attempts, resolve manually in outbox_events",
+					parked, this.maxAttempts);
+		}
+	}
+
+	private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+		try {
+			Object payload = this.objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+			return this.producer.send(event.getTopic(), event.getMessageKey(), payload);
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	// null = broker da ack
+	private Throwable await(CompletableFuture<SendResult<String, Object>> send, long deadline) {
+		try {
+			send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return e;
+		} catch (ExecutionException e) {
+			return e.getCause() == null ? e : e.getCause();
+		} catch (TimeoutException e) {
+			return e;
+		}
+	}
+
+	// broker cham / khong toi duoc / het slot in-flight: thu lai, khong tinh vao max-attempts
+	static boolean isTransient(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof RetriableException || cause instanceof TimeoutException
+					|| cause instanceof InterruptedException) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,52 @@
+package com.r2s.auth.kafka;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Lets only one auth-service instance relay the outbox at a time, using a
+ * session-level Postgres advisory lock held on a dedicated connection for the
+ * duration of the run. No transaction or row lock stays open while the relay
+ * waits on the broker; if the instance dies the lock goes with its session.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxRelayLock {
+	// khoa chung cho moi instance auth-service ("outbox" theo ASCII)
+	static final long LOCK_ID = 0x6f7574626f78L;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	// false: instance khac dang relay, bo qua lan nay
+	public boolean runExclusively(Runnable task) {
+		Boolean ran = this.jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+			if (!query(connection, "select pg_try_advisory_lock(?)")) {
+				return false;
+			}
+			try {
+				task.run();
+				return true;
+			} finally {
+				query(connection, "select pg_advisory_unlock(?)");
+			}
+		});
+		return Boolean.TRUE.equals(ran);
+	}
+
+	private static boolean query(Connection connection, String sql) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setLong(1, LOCK_ID);
+			try (ResultSet rs = statement.executeQuery()) {
+				return rs.next() && rs.getBoolean(1);
+			}
+		}
+	}
+}
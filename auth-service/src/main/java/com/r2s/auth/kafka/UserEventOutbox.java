@@ -0,0 +1,40 @@
+package com.r2s.auth.kafka;
+
+import java.time.Instant;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.entity.OutboxEvent;
+import com.r2s.core.repository.OutboxEventRepository;
+
+import lombok.RequiredArgsConstructor;
+
+// ghi event vao bang outbox trong transaction cua nghiep vu, OutboxRelay gui len Kafka sau
+@Component
+@RequiredArgsConstructor
+public class UserEventOutbox {
+
+	private final OutboxEventRepository outboxEventRepository;
+	private final ObjectMapper objectMapper;
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public OutboxEvent userRegistered(CreateUserProfileDTO event) {
+		return this.append(KafkaTopics.USER_REGISTERED, String.valueOf(event.getUserId()), event);
+	}
+
+	private OutboxEvent append(String topic, String key, Object payload) {
+		try {
+			return this.outboxEventRepository.save(OutboxEvent.builder().topic(topic).messageKey(key)
+					.payloadType(payload.getClass().getName()).payload(this.objectMapper.writeValueAsString(payload))
+					.createdAt(Instant.now()).build());
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Can not serialize outbox payload for topic " + topic, e);
+		}
+	}
+}
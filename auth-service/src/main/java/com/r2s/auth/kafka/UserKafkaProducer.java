@@ -1,40 +1,110 @@
 package com.r2s.auth.kafka;
 
-import com.r2s.core.dto.CreateUserProfileDTO;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import lombok.extern.slf4j.Slf4j;
+
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Asynchronous keyed producer. At most {@code kafka.producer.max-in-flight}
+ * records are outstanding; callers block up to {@code acquire-timeout-ms} for a
+ * slot and otherwise get a failed future. Batching ({@code linger.ms},
+ * {@code batch-size}), lz4 compression and the idempotent producer
+ * ({@code acks=all}, at most 5 requests in flight per connection) are set
+ * through {@code spring.kafka.producer.*} in application.properties.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class UserKafkaProducer {
+public class UserKafkaProducer implements MeterBinder {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final long acquireTimeoutMs;
+    private volatile Counter succeeded;
+    private volatile Counter failed;
+    private volatile Timer latency;
+
+    public UserKafkaProducer(KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${kafka.producer.max-in-flight:1000}") int maxInFlight,
+            @Value("${kafka.producer.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
 
-    public void sendUserRegistered(CreateUserProfileDTO user) {
-        log.info("Sending user registration event to Kafka: userId={}, username={}, email={}, fullName={}", 
-                user.getUserId(), user.getUsername(), user.getEmail(), user.getFullName());
+    // goi tu OutboxRelay; ket qua (ack / loi) do relay xu ly, metrics ghi o callback
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object payload) {
         try {
-            kafkaTemplate.send("user.registered", user);
-            log.info("Successfully sent user registration event to Kafka topic: user.registered");
-        } catch (Exception e) {
-            log.error("Failed to send user registration event to Kafka: {}", e.getMessage(), e);
+            if (!inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                // loi tam thoi (RetriableException): relay gui lai, khong tinh la event loi
+                return CompletableFuture.failedFuture(
+                        new TimeoutException("Too many in-flight Kafka sends (" + maxInFlight + ")"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
         }
-    }
-}
-
-
-
-
-
-
-
-
-
-
 
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, payload);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            record(failed);
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, ex) -> {
+            inFlight.release();
+            Timer timer = latency;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (ex != null) {
+                record(failed);
+                log.warn("Kafka send failed: topic={}, key={}: {}", topic, key, ex.getMessage());
+            } else {
+                record(succeeded);
+                log.debug("Kafka send acked: topic={}, key={}, partition={}, offset={}", topic, key,
+                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+            }
+        });
+    }
 
+    public int inFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
 
+    private static void record(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
 
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        succeeded = Counter.builder("auth.kafka.producer.sends").tag("result", "success")
+                .description("Records acknowledged by the broker").register(registry);
+        failed = Counter.builder("auth.kafka.producer.sends").tag("result", "failure")
+                .description("Records that failed or were refused locally").register(registry);
+        latency = Timer.builder("auth.kafka.producer.latency").description("Time from send to broker ack")
+                .register(registry);
+        Gauge.builder("auth.kafka.producer.in-flight", this, UserKafkaProducer::inFlightCount)
+                .description("Records sent but not yet acknowledged").register(registry);
+    }
+}
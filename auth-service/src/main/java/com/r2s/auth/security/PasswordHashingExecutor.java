@@ -0,0 +1,136 @@
+package com.r2s.auth.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.r2s.core.exception.ServiceBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs password hashing (BCrypt verify on login, encode on register) on a
+ * dedicated, fixed-size pool with a bounded queue, so a login spike cannot
+ * occupy every Tomcat thread. Work that cannot be queued, or that waits longer
+ * than {@code auth.hashing.max-wait}, fails fast with
+ * {@link ServiceBusyException} (503). Queue depth, wait time and hash time are
+ * published as {@code auth.hashing.*} metrics.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor implements MeterBinder, DisposableBean {
+	private final ThreadPoolExecutor executor;
+	private final Duration maxWait;
+	private volatile Timer waitTimer;
+	private volatile Timer hashTimer;
+	private volatile Counter rejections;
+
+	public PasswordHashingExecutor(@Value("${auth.hashing.threads:0}") final int threads,
+			@Value("${auth.hashing.queue-capacity:64}") final int queueCapacity,
+			@Value("${auth.hashing.max-wait:2s}") final Duration maxWait) {
+		// 0 = so core cua may
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger sequence = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.maxWait = maxWait;
+	}
+
+	public <T> T execute(final Supplier<T> task) {
+		long submittedAt = System.nanoTime();
+		Future<T> future;
+		try {
+			future = this.executor.submit(() -> {
+				long startedAt = System.nanoTime();
+				record(this.waitTimer, startedAt - submittedAt);
+				try {
+					return task.get();
+				} finally {
+					record(this.hashTimer, System.nanoTime() - startedAt);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.reject("queue full");
+			throw this.busy();
+		}
+
+		try {
+			return future.get(this.maxWait.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			this.reject("timed out");
+			throw this.busy();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw this.busy();
+		}
+	}
+
+	public int getQueueDepth() {
+		return this.executor.getQueue().size();
+	}
+
+	private void reject(final String reason) {
+		log.warn("Password hashing rejected ({}), queue depth={}", reason, this.getQueueDepth());
+		Counter counter = this.rejections;
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	private ServiceBusyException busy() {
+		return new ServiceBusyException("auth", "Authentication service is busy, please retry later",
+				Math.max(1, this.maxWait.toSeconds()));
+	}
+
+	private static void record(final Timer timer, final long nanos) {
+		if (timer != null) {
+			timer.record(nanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		Gauge.builder("auth.hashing.queue.depth", this.executor, e -> e.getQueue().size())
+				.description("Hashing tasks waiting for a thread").register(registry);
+		Gauge.builder("auth.hashing.active", this.executor, ThreadPoolExecutor::getActiveCount)
+				.description("Hashing threads currently busy").register(registry);
+		this.waitTimer = Timer.builder("auth.hashing.wait").description("Time spent queued before hashing")
+				.register(registry);
+		this.hashTimer = Timer.builder("auth.hashing.duration").description("Time spent hashing / verifying")
+				.register(registry);
+		this.rejections = Counter.builder("auth.hashing.rejected").description("Requests refused with 503")
+				.register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+}
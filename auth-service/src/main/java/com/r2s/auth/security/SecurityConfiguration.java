@@ -1,5 +1,9 @@
 package com.r2s.auth.security;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -12,7 +16,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -21,6 +24,8 @@ import com.r2s.core.security.CustomAccessDeniedHandler;
 import com.r2s.core.security.CustomAuthenticationEntryPoint;
 import com.r2s.core.security.CustomUserDetailsService;
 import com.r2s.core.security.JwtAuthenticationFilter;
+import com.r2s.core.security.LoginThrottlingFilter;
+import com.r2s.core.security.PasswordEncoders;
 
 @Configuration
 @EnableWebSecurity
@@ -48,29 +53,61 @@ public class SecurityConfiguration {
 		return authConfiguration.getAuthenticationManager();
 	}
 
+	// {bcrypt} + salt; bcrypt-strength = 0 -> do cost tren may hien tai theo target-hash-time
 	@Bean
-	PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder(); // salt
+	PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:0}") int strength,
+			@Value("${auth.password.target-hash-time:250ms}") Duration targetHashTime,
+			@Value("${auth.password.min-strength:10}") int minStrength,
+			@Value("${auth.password.max-strength:14}") int maxStrength) {
+		int bcryptStrength = strength > 0 ? strength
+				: PasswordEncoders.calibrateBCryptStrength(targetHashTime, minStrength, maxStrength);
+		return PasswordEncoders.delegating(bcryptStrength);
 	}
 
 	@Bean
-	AuthenticationProvider authenticationProvider() {
+	AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
 		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 		authProvider.setUserDetailsService(this.userDetailsService);
-		authProvider.setPasswordEncoder(this.passwordEncoder());
+		authProvider.setPasswordEncoder(passwordEncoder);
+		// hash cu / cost thap duoc rehash khi login thanh cong
+		authProvider.setUserDetailsPasswordService(this.userDetailsService);
 
 		return authProvider;
 	}
 
+	// chan brute-force /auth/login theo username va IP truoc khi BCrypt chay
+	@Bean
+	LoginThrottlingFilter loginThrottlingFilter(
+			@Value("${auth.login-throttle.username.capacity:5}") int usernameCapacity,
+			@Value("${auth.login-throttle.username.refill-period:1m}") Duration usernameRefillPeriod,
+			@Value("${auth.login-throttle.ip.capacity:30}") int ipCapacity,
+			@Value("${auth.login-throttle.ip.refill-period:1m}") Duration ipRefillPeriod,
+			@Value("${auth.login-throttle.idle-expiry:15m}") Duration idleExpiry,
+			@Value("${auth.login-throttle.maximum-keys:100000}") long maximumKeys) {
+		return new LoginThrottlingFilter("/auth/login",
+				new LoginThrottlingFilter.Limit(usernameCapacity, usernameRefillPeriod),
+				new LoginThrottlingFilter.Limit(ipCapacity, ipRefillPeriod), idleExpiry, maximumKeys);
+	}
+
+	// chi chay trong security chain, khong dang ky them lan nua vao servlet container
+	@Bean
+	FilterRegistrationBean<LoginThrottlingFilter> loginThrottlingFilterRegistration(LoginThrottlingFilter filter) {
+		FilterRegistrationBean<LoginThrottlingFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.setEnabled(false);
+		return registration;
+	}
+
 	@Bean
-	SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+	SecurityFilterChain filterChain(HttpSecurity http, AuthenticationProvider authenticationProvider,
+			LoginThrottlingFilter loginThrottlingFilter) throws Exception {
 		http.csrf(AbstractHttpConfigurer::disable);
 
 		http.authorizeHttpRequests(auths -> auths.requestMatchers(WHITE_LIST).permitAll().requestMatchers("/user")
 				.hasRole("USER").requestMatchers("/admin").hasRole("ADMIN").requestMatchers("/mod").hasRole("MODERATOR")
 				.anyRequest().authenticated())
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-				.authenticationProvider(this.authenticationProvider())
+				.authenticationProvider(authenticationProvider)
+				.addFilterBefore(loginThrottlingFilter, UsernamePasswordAuthenticationFilter.class)
 				.addFilterBefore(this.jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
 				.exceptionHandling(handler -> handler.accessDeniedHandler(this.accessDeniedHandler)
 						.authenticationEntryPoint(this.authenticationEntryPoint));
@@ -1,6 +1,7 @@
 package com.r2s.auth.service.impl;
 
 import java.util.List;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,8 +10,10 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.r2s.auth.kafka.UserKafkaProducer;
+import com.r2s.auth.kafka.UserEventOutbox;
+import com.r2s.auth.security.PasswordHashingExecutor;
 import com.r2s.auth.service.UserService;
 import com.r2s.core.constant.SecurityRole;
 import com.r2s.core.dto.CreateUserProfileDTO;
@@ -22,6 +25,7 @@ import com.r2s.core.exception.UserAlreadyExistException;
 import com.r2s.core.repository.RoleRepository;
 import com.r2s.core.repository.UserRepository;
 import com.r2s.core.security.CustomUserDetails;
+import com.r2s.core.security.UserDetailsCache;
 import com.r2s.core.util.JwtUtils;
 
 import lombok.RequiredArgsConstructor;
@@ -36,7 +40,10 @@ public class UserServiceIMPL implements UserService {
 	private final RoleRepository roleRepository;
 	private final AuthenticationManager authenticationManager;
 	private final JwtUtils jwtUtils;
-	private final UserKafkaProducer producer;
+	private final UserEventOutbox outbox;
+	private final TransactionTemplate transactionTemplate;
+	private final UserDetailsCache userDetailsCache;
+	private final PasswordHashingExecutor hashingExecutor;
 
 	@Value("${jwt.duration}")
 	private long jwtDuration;
@@ -44,13 +51,14 @@ public class UserServiceIMPL implements UserService {
 	@Override
 	public Boolean signUp(SignUpRequest request) {
 		// check exists userName
-		this.userRepository.findByUsername(request.getUsername()).ifPresent((u) -> {
+		if (this.userRepository.existsByUsernameIgnoreCase(request.getUsername())) {
 			throw new UserAlreadyExistException("User already exist!" + request.getUsername());
-		});
+		}
 
-		// Create new User entity
+		// Create new User entity (hash password tren pool rieng, 503 neu qua tai)
+		String encodedPassword = this.hashingExecutor.execute(() -> this.passwordEncoder.encode(request.getPassword()));
 		User user = User.builder().username(request.getUsername())
-				.password(this.passwordEncoder.encode(request.getPassword())).email(request.getEmail())
+				.password(encodedPassword).email(request.getEmail())
 				.fullname(request.getFullName()).deleted(false).build();
 		// Set role from request, default to USER if not provided
 		String roleName = (request.getRole() != null && request.getRole().getRoleName() != null)
@@ -60,33 +68,37 @@ public class UserServiceIMPL implements UserService {
 			user.setRoles(List.of(role));
 		});
 
+		// user + outbox event trong 1 transaction (hash o tren, ngoai transaction -> khong giu connection luc hash)
+		// gui Kafka do OutboxRelay lam sau, latency dang ky khong phu thuoc broker
 		User savedUser;
 		try {
-			savedUser = this.userRepository.save(user);
+			savedUser = this.transactionTemplate.execute(status -> {
+				User saved = this.userRepository.save(user);
+				List<String> roleNames = saved.getRoles().stream().map(role -> role.getRoleName()).toList();
+				this.outbox.userRegistered(CreateUserProfileDTO.builder().eventId(UUID.randomUUID())
+						.eventVersion(CreateUserProfileDTO.CURRENT_VERSION).userId(saved.getId())
+						.username(saved.getUsername()).email(saved.getEmail()).fullName(saved.getFullname())
+						.roleNames(roleNames).build());
+				return saved;
+			});
 		} catch (Exception e) {
 			// Log lỗi hệ thống nhưng KHÔNG nuốt lỗi → để GlobalExceptionHandler đẩy 500
 			log.error("Failed to save user {}: {}", request.getUsername(), e.getMessage(), e);
 			throw e; // bubble lên 500
 		}
-		// Kafka event
-		List<String> roleNames = savedUser.getRoles().stream().map(role -> role.getRoleName()).toList();
-
-		// Send event to Kafka for user-service
-		CreateUserProfileDTO event = CreateUserProfileDTO.builder().userId(savedUser.getId())
-				.username(savedUser.getUsername()).email(savedUser.getEmail()).fullName(savedUser.getFullname())
-				.roleNames(roleNames).build();
-		producer.sendUserRegistered(event);
+		// username vua tao co the dang nam trong negative cache
+		this.userDetailsCache.evict(savedUser.getUsername());
 
 		return true;
 	}
 
 	@Override
 	public SignInResponse signIn(SignInRequest request) {
-		// Authenticate user
+		// Authenticate user (BCrypt verify chay tren pool rieng, khong chiem thread cua Tomcat)
 		Authentication authentication;
 		try {
-			authentication = authenticationManager.authenticate(
-					new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+			authentication = hashingExecutor.execute(() -> authenticationManager.authenticate(
+					new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())));
 		} catch (BadCredentialsException ex) {
 			// Log nhẹ, không leak info
 			log.warn("Failed login attempt for username: {}", request.getUsername());
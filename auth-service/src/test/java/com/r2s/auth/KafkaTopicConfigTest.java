@@ -0,0 +1,56 @@
+package com.r2s.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import com.r2s.auth.kafka.KafkaTopicConfig;
+import com.r2s.core.constant.KafkaTopics;
+
+/**
+ * The user.registered topic KafkaAdmin creates from application.properties.
+ * user-service runs one consumer thread per partition
+ * ({@code user.consumer.concurrency}, default 6), so the two defaults must
+ * stay equal.
+ */
+class KafkaTopicConfigTest {
+	// mac dinh cua user.consumer.concurrency (user-service) va USER_REGISTERED_PARTITIONS (docker-compose)
+	private static final int USER_CONSUMER_CONCURRENCY = 6;
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withInitializer(KafkaTopicConfigTest::applicationProperties)
+			.withUserConfiguration(KafkaTopicConfig.class);
+
+	@Test
+	void userRegisteredTopic_shouldHaveOnePartitionPerConsumerThread() {
+		contextRunner.run(context -> {
+			NewTopic topic = context.getBean("userRegisteredTopic", NewTopic.class);
+
+			assertThat(topic.name()).isEqualTo(KafkaTopics.USER_REGISTERED);
+			assertThat(topic.numPartitions()).isEqualTo(USER_CONSUMER_CONCURRENCY);
+		});
+	}
+
+	@Test
+	void userRegisteredTopic_shouldFollowPartitionProperty() {
+		contextRunner.withPropertyValues("KAFKA_USER_REGISTERED_PARTITIONS=12").run(context -> {
+			assertThat(context.getBean("userRegisteredTopic", NewTopic.class).numPartitions()).isEqualTo(12);
+		});
+	}
+
+	private static void applicationProperties(ConfigurableApplicationContext context) {
+		try {
+			context.getEnvironment().getPropertySources()
+					.addLast(new ResourcePropertySource("classpath:application.properties"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
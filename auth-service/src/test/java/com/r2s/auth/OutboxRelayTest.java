@@ -0,0 +1,169 @@
+package com.r2s.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.r2s.auth.kafka.OutboxRelay;
+import com.r2s.auth.kafka.OutboxRelayLock;
+import com.r2s.auth.kafka.UserKafkaProducer;
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.entity.OutboxEvent;
+import com.r2s.core.repository.OutboxEventRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+	@Mock
+	private OutboxEventRepository outboxEventRepository;
+
+	@Mock
+	private UserKafkaProducer producer;
+
+	@Mock
+	private OutboxRelayLock relayLock;
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@InjectMocks
+	private OutboxRelay outboxRelay;
+
+	@BeforeEach
+	void setUp() {
+		// instance nay giu duoc lock
+		lenient().when(relayLock.runExclusively(any())).thenAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return true;
+		});
+	}
+
+	@Test
+	void relay_shouldSendKeyedEventsAndDeleteDelivered() throws Exception {
+		OutboxEvent first = event(1L, "7", "alice");
+		OutboxEvent second = event(2L, "8", "bob");
+		when(outboxEventRepository.findNextBatch(100)).thenReturn(List.of(first, second));
+		when(producer.send(eq(KafkaTopics.USER_REGISTERED), anyString(), any())).thenReturn(sent());
+
+		outboxRelay.relay();
+
+		ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+		verify(producer).send(eq(KafkaTopics.USER_REGISTERED), eq("7"), payload.capture());
+		assertEquals("alice", ((CreateUserProfileDTO) payload.getValue()).getUsername());
+		verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+	}
+
+	@Test
+	void relay_shouldSendEventsOfSameKeyOneAfterAnother() throws Exception {
+		OutboxEvent first = event(1L, "7", "alice");
+		OutboxEvent other = event(2L, "8", "bob");
+		OutboxEvent second = event(3L, "7", "alice.new");
+		when(outboxEventRepository.findNextBatch(100)).thenReturn(List.of(first, other, second));
+		when(producer.send(anyString(), anyString(), any())).thenReturn(sent());
+
+		outboxRelay.relay();
+
+		// luot 1: event dau cua key 7 va 8; luot 2: event sau cua key 7 (sau khi event dau da ack)
+		InOrder order = inOrder(producer);
+		order.verify(producer).send(anyString(), eq("7"), any());
+		order.verify(producer).send(anyString(), eq("8"), any());
+		order.verify(producer).send(anyString(), eq("7"), any());
+		verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+	}
+
+	@Test
+	void relay_shouldStopKeyAtFirstFailureWithoutSendingLaterEvents() throws Exception {
+		OutboxEvent failed = event(1L, "7", "alice");
+		OutboxEvent other = event(2L, "8", "bob");
+		OutboxEvent sameKey = event(3L, "7", "alice");
+		when(outboxEventRepository.findNextBatch(100)).thenReturn(List.of(failed, other, sameKey));
+		when(producer.send(anyString(), eq("7"), any()))
+				.thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+		when(producer.send(anyString(), eq("8"), any())).thenReturn(sent());
+
+		outboxRelay.relay();
+
+		// event sau cua key 7 khong duoc gui truoc event loi; loi tam thoi khong tinh attempts
+		verify(producer, times(1)).send(anyString(), eq("7"), any());
+		verify(outboxEventRepository).deleteAllByIdInBatch(List.of(2L));
+		verify(outboxEventRepository, never()).incrementAttempts(any());
+		verify(outboxEventRepository, never()).parkKeys(any(), any());
+	}
+
+	@Test
+	void relay_shouldCountPermanentFailuresAndParkKeyAtMaxAttempts() throws Exception {
+		OutboxEvent poison = event(1L, "7", "alice");
+		poison.setAttempts(9);
+		OutboxEvent unreadable = event(2L, "8", "bob");
+		unreadable.setPayloadType("com.r2s.core.dto.Missing");
+		when(outboxEventRepository.findNextBatch(100)).thenReturn(List.of(poison, unreadable));
+		when(producer.send(anyString(), eq("7"), any()))
+				.thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+
+		outboxRelay.relay();
+
+		verify(outboxEventRepository).incrementAttempts(List.of(1L, 2L));
+		// chi key 7 da toi 10 lan
+		verify(outboxEventRepository).parkKeys(eq(List.of("7")), any(Instant.class));
+		verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+	}
+
+	@Test
+	void relay_shouldSkipWhenAnotherInstanceHoldsTheLock() {
+		doReturn(false).when(relayLock).runExclusively(any());
+
+		outboxRelay.relay();
+
+		verifyNoInteractions(outboxEventRepository, producer);
+	}
+
+	@Test
+	void relay_shouldDoNothingWhenOutboxIsEmpty() {
+		when(outboxEventRepository.findNextBatch(100)).thenReturn(List.of());
+
+		outboxRelay.relay();
+
+		verify(producer, never()).send(anyString(), anyString(), any());
+		verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+	}
+
+	private OutboxEvent event(long id, String key, String username) throws Exception {
+		CreateUserProfileDTO payload = CreateUserProfileDTO.builder().userId(Integer.valueOf(key)).username(username)
+				.email(username + "@example.com").fullName(username).roleNames(List.of("USER")).build();
+		return OutboxEvent.builder().id(id).topic(KafkaTopics.USER_REGISTERED).messageKey(key)
+				.payloadType(CreateUserProfileDTO.class.getName()).payload(objectMapper.writeValueAsString(payload))
+				.createdAt(Instant.now()).build();
+	}
+
+	private static CompletableFuture<SendResult<String, Object>> sent() {
+		return CompletableFuture.completedFuture(null);
+	}
+}
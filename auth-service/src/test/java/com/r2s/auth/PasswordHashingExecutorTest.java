@@ -0,0 +1,97 @@
+package com.r2s.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import com.r2s.auth.security.PasswordHashingExecutor;
+import com.r2s.core.exception.ServiceBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHashingExecutorTest {
+
+	private PasswordHashingExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		executor.destroy();
+	}
+
+	@Test
+	void execute_shouldReturnTaskResult() {
+		executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5));
+
+		assertEquals("hashed", executor.execute(() -> "hashed"));
+	}
+
+	@Test
+	void execute_shouldRethrowTaskException() {
+		executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5));
+
+		assertThrows(BadCredentialsException.class, () -> executor.execute(() -> {
+			throw new BadCredentialsException("Bad credentials");
+		}));
+	}
+
+	@Test
+	void execute_shouldFailFastWhenQueueIsFull() throws Exception {
+		executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		executor.bindTo(registry);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		// 1 task dang chay + 1 task trong hang doi -> task thu 3 bi tu choi
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+			started.countDown();
+			await(release);
+			return "first";
+		}));
+		started.await(5, TimeUnit.SECONDS);
+		CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "second"));
+		waitForQueueDepth(1);
+
+		assertThrows(ServiceBusyException.class, () -> executor.execute(() -> "third"));
+		assertEquals(1.0, registry.get("auth.hashing.rejected").counter().count());
+
+		release.countDown();
+		assertEquals("first", running.get(5, TimeUnit.SECONDS));
+		assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void execute_shouldFailWhenWaitExceedsLimit() {
+		executor = new PasswordHashingExecutor(1, 1, Duration.ofMillis(50));
+		CountDownLatch release = new CountDownLatch(1);
+
+		assertThrows(ServiceBusyException.class, () -> executor.execute(() -> {
+			await(release);
+			return "slow";
+		}));
+		release.countDown();
+	}
+
+	private void waitForQueueDepth(final int depth) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (executor.getQueueDepth() < depth && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
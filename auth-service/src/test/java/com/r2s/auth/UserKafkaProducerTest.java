@@ -0,0 +1,80 @@
+package com.r2s.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import com.r2s.auth.kafka.UserKafkaProducer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserKafkaProducerTest {
+
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private UserKafkaProducer producer;
+
+	@BeforeEach
+	void setUp() {
+		producer = new UserKafkaProducer(kafkaTemplate, 1, 0);
+		producer.bindTo(registry);
+	}
+
+	@Test
+	void send_shouldRecordSuccessAndReleaseSlot() {
+		CompletableFuture<SendResult<String, Object>> pending = new CompletableFuture<>();
+		when(kafkaTemplate.send("user.registered", "7", "payload")).thenReturn(pending);
+
+		producer.send("user.registered", "7", "payload");
+		assertEquals(1, producer.inFlightCount());
+
+		pending.complete(acked("user.registered", "7"));
+
+		assertEquals(0, producer.inFlightCount());
+		assertEquals(1.0, registry.get("auth.kafka.producer.sends").tag("result", "success").counter().count());
+		assertEquals(1, registry.get("auth.kafka.producer.latency").timer().count());
+	}
+
+	@Test
+	void send_shouldRecordFailure() {
+		when(kafkaTemplate.send("user.registered", "7", "payload"))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+		CompletableFuture<SendResult<String, Object>> result = producer.send("user.registered", "7", "payload");
+
+		assertTrue(result.isCompletedExceptionally());
+		assertEquals(0, producer.inFlightCount());
+		assertEquals(1.0, registry.get("auth.kafka.producer.sends").tag("result", "failure").counter().count());
+	}
+
+	@Test
+	void send_shouldRefuseWhenInFlightLimitReached() {
+		when(kafkaTemplate.send("user.registered", "7", "payload")).thenReturn(new CompletableFuture<>());
+
+		producer.send("user.registered", "7", "payload");
+		CompletableFuture<SendResult<String, Object>> refused = producer.send("user.registered", "7", "payload");
+
+		// gioi han 1 record dang cho ack -> record thu 2 bi tu choi, khong goi KafkaTemplate
+		assertTrue(refused.isCompletedExceptionally());
+		verify(kafkaTemplate, times(1)).send("user.registered", "7", "payload");
+	}
+
+	private static SendResult<String, Object> acked(String topic, String key) {
+		return new SendResult<>(new ProducerRecord<>(topic, key, "payload"),
+				new RecordMetadata(new TopicPartition(topic, 0), 0, 0, 0, 0, 0));
+	}
+}
@@ -5,21 +5,24 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -27,8 +30,11 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.r2s.auth.kafka.UserKafkaProducer;
+import com.r2s.auth.kafka.UserEventOutbox;
+import com.r2s.auth.security.PasswordHashingExecutor;
 import com.r2s.auth.service.impl.UserServiceIMPL;
 import com.r2s.core.constant.SecurityRole;
 import com.r2s.core.dto.CreateUserProfileDTO;
@@ -41,6 +47,7 @@ import com.r2s.core.exception.UserAlreadyExistException;
 import com.r2s.core.repository.RoleRepository;
 import com.r2s.core.repository.UserRepository;
 import com.r2s.core.security.CustomUserDetails;
+import com.r2s.core.security.UserDetailsCache;
 import com.r2s.core.util.JwtUtils;
 
 @ExtendWith(MockitoExtension.class)
@@ -62,13 +69,27 @@ class UserServiceTest {
 	private JwtUtils jwtUtils;
 
 	@Mock
-	private UserKafkaProducer producer;
+	private UserEventOutbox outbox;
+
+	@Spy
+	private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+	@Mock
+	private UserDetailsCache userDetailsCache;
+
+	@Spy
+	private PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(5));
 
 	@InjectMocks
 	private UserServiceIMPL userService;
 
 	private static final long JWT_DURATION = 86400L; // 1 day in seconds
 
+	@AfterEach
+	void tearDown() {
+		hashingExecutor.destroy();
+	}
+
 	@BeforeEach
 	void setUp() {
 		// Set jwtDuration field using ReflectionTestUtils
@@ -89,22 +110,23 @@ class UserServiceTest {
 		User savedUser = User.builder().id(1).username("john").email("john@example.com").fullname("John Doe")
 				.password("encodedPassword").deleted(false).roles(List.of(userRole)).build();
 
-		when(userRepository.findByUsername("john")).thenReturn(Optional.empty());
+		when(userRepository.existsByUsernameIgnoreCase("john")).thenReturn(false);
 		when(passwordEncoder.encode("123456")).thenReturn("encodedPassword");
 		when(roleRepository.findByRoleName(SecurityRole.ROLE_USER)).thenReturn(Optional.of(userRole));
 		when(userRepository.save(any(User.class))).thenReturn(savedUser);
-		doNothing().when(producer).sendUserRegistered(any(CreateUserProfileDTO.class));
 
 		// Execute
 		Boolean result = userService.signUp(request);
 
 		// Verify
 		assertTrue(result);
-		verify(userRepository, times(1)).findByUsername("john");
+		verify(userRepository, times(1)).existsByUsernameIgnoreCase("john");
 		verify(passwordEncoder, times(1)).encode("123456");
 		verify(roleRepository, times(1)).findByRoleName(SecurityRole.ROLE_USER);
 		verify(userRepository, times(1)).save(any(User.class));
-		verify(producer, times(1)).sendUserRegistered(any(CreateUserProfileDTO.class));
+		verify(transactionTemplate, times(1)).execute(any());
+		verify(outbox, times(1)).userRegistered(any(CreateUserProfileDTO.class));
+		verify(userDetailsCache, times(1)).evict("john");
 	}
 
 	// === TEST signUp() - username already exists ===
@@ -117,9 +139,7 @@ class UserServiceTest {
 		request.setEmail("john@example.com");
 		request.setFullName("John Doe");
 
-		User existingUser = User.builder().id(1).username("john").build();
-
-		when(userRepository.findByUsername("john")).thenReturn(Optional.of(existingUser));
+		when(userRepository.existsByUsernameIgnoreCase("john")).thenReturn(true);
 
 		// Execute & Verify
 		assertThrows(UserAlreadyExistException.class, () -> {
@@ -127,9 +147,9 @@ class UserServiceTest {
 		});
 
 		// Verify
-		verify(userRepository, times(1)).findByUsername("john");
+		verify(userRepository, times(1)).existsByUsernameIgnoreCase("john");
 		verify(userRepository, never()).save(any(User.class));
-		verify(producer, never()).sendUserRegistered(any(CreateUserProfileDTO.class));
+		verify(outbox, never()).userRegistered(any(CreateUserProfileDTO.class));
 	}
 
 	// === TEST signUp() - with custom role ===
@@ -149,11 +169,10 @@ class UserServiceTest {
 		User savedUser = User.builder().id(1).username("admin").email("admin@example.com").fullname("Admin User")
 				.password("encodedPassword").deleted(false).roles(List.of(adminRole)).build();
 
-		when(userRepository.findByUsername("admin")).thenReturn(Optional.empty());
+		when(userRepository.existsByUsernameIgnoreCase("admin")).thenReturn(false);
 		when(passwordEncoder.encode("123456")).thenReturn("encodedPassword");
 		when(roleRepository.findByRoleName("ADMIN")).thenReturn(Optional.of(adminRole));
 		when(userRepository.save(any(User.class))).thenReturn(savedUser);
-		doNothing().when(producer).sendUserRegistered(any(CreateUserProfileDTO.class));
 
 		// Execute
 		Boolean result = userService.signUp(request);
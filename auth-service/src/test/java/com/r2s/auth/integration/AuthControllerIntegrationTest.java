@@ -3,9 +3,7 @@ package com.r2s.auth.integration;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.notNullValue;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -31,12 +29,14 @@ import org.testcontainers.containers.PostgreSQLContainer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.r2s.auth.kafka.UserKafkaProducer;
-import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.constant.KafkaTopics;
 import com.r2s.core.dto.request.SignInRequest;
 import com.r2s.core.dto.request.SignUpRequest;
 import com.r2s.core.dto.request.SignUpRequest.RoleRequest;
 import com.r2s.core.entity.Role;
+import com.r2s.core.entity.OutboxEvent;
 import com.r2s.core.entity.User;
+import com.r2s.core.repository.OutboxEventRepository;
 import com.r2s.core.repository.RoleRepository;
 import com.r2s.core.repository.UserRepository;
 
@@ -97,6 +97,9 @@ class AuthControllerIntegrationTest {
 	@Autowired
 	private RoleRepository roleRepository;
 
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 
@@ -111,6 +114,7 @@ class AuthControllerIntegrationTest {
 
 	@BeforeEach
 	void setUp() {
+		outboxEventRepository.deleteAll();
 		userRepository.deleteAll();
 		roleRepository.deleteAll();
 
@@ -130,7 +134,7 @@ class AuthControllerIntegrationTest {
 	}
 
 	@Test
-	void register_shouldPersistUserAndEmitKafkaEvent() throws Exception {
+	void register_shouldPersistUserAndOutboxEvent() throws Exception {
 		SignUpRequest request = SignUpRequest.builder()
 				.username("newuser")
 				.password("Secret#123")
@@ -150,7 +154,12 @@ class AuthControllerIntegrationTest {
 		assertThat(passwordEncoder.matches("Secret#123", persisted.getPassword())).isTrue();
 		assertThat(persisted.getRoles()).extracting(Role::getRoleName).containsExactly("ADMIN");
 
-		verify(userKafkaProducer).sendUserRegistered(any(CreateUserProfileDTO.class));
+		// event nam trong outbox cung transaction, relay tat trong profile test
+		List<OutboxEvent> outbox = outboxEventRepository.findAll();
+		assertThat(outbox).hasSize(1);
+		assertThat(outbox.get(0).getTopic()).isEqualTo(KafkaTopics.USER_REGISTERED);
+		assertThat(outbox.get(0).getMessageKey()).isEqualTo(String.valueOf(persisted.getId()));
+		verifyNoInteractions(userKafkaProducer);
 	}
 
 	@Test
@@ -174,11 +183,11 @@ class AuthControllerIntegrationTest {
 		mockMvc.perform(post("/auth/register")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(objectMapper.writeValueAsString(request)))
-				.andExpect(status().isInternalServerError())
-				.andExpect(jsonPath("$.code").value("INTERNAL_SERVER"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.code").value("ALREADY_EXIT"))
 				.andExpect(jsonPath("$.message", containsString("User already exist")));
 
-		verifyNoInteractions(userKafkaProducer);
+		assertThat(outboxEventRepository.count()).isZero();
 	}
 
 	@Test
@@ -0,0 +1,12 @@
+package com.r2s.core.constant;
+
+public class KafkaTopics {
+	public static final String USER_REGISTERED = "user.registered";
+	// user-service: record loi tu user.registered -> retry (backoff tang dan) -> DLT
+	public static final String USER_REGISTERED_RETRY = "user.registered.retry";
+	public static final String USER_REGISTERED_DLT = USER_REGISTERED_RETRY + "-dlt";
+	// broadcast: moi node nghe voi group rieng de xoa cache user
+	public static final String USER_INVALIDATED = "user.invalidated";
+	// log-compacted: trang thai day du moi nhat cua user (key = user id trong user-service), value null = da xoa
+	public static final String USER_STATE = "user.state";
+}
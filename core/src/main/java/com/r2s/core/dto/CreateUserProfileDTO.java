@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -14,6 +15,12 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 public class CreateUserProfileDTO {
+    // version hien tai cua schema event; consumer dung de nhan biet event cu / moi
+    public static final int CURRENT_VERSION = 1;
+
+    // id duy nhat cua event (consumer dung de bo qua event da xu ly); null voi event cu truoc version 1
+    private UUID eventId;
+    private int eventVersion;
     private Integer userId;
     private String username;
     private String email;
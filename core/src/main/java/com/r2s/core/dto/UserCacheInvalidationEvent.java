@@ -0,0 +1,17 @@
+package com.r2s.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserCacheInvalidationEvent {
+    private String username;
+    private String reason;// UPDATED, DELETED, ROLES_CHANGED
+}
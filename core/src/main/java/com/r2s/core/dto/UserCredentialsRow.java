@@ -0,0 +1,8 @@
+package com.r2s.core.dto;
+
+/**
+ * One row of the authentication projection: the user's credentials joined with
+ * one of its role names ({@code roleName} is null for a user without roles).
+ */
+public record UserCredentialsRow(String username, String password, boolean deleted, String roleName) {
+}
@@ -0,0 +1,21 @@
+package com.r2s.core.dto;
+
+/**
+ * Profile columns of a user returned by the single-statement profile update,
+ * with the role names joined by commas ({@code null} when the user has none).
+ */
+public interface UserProfileRow {
+	Integer getId();
+
+	String getUsername();
+
+	String getEmail();
+
+	String getFullname();
+
+	Boolean getDeleted();
+
+	Long getVersion();
+
+	String getRoleNames();
+}
@@ -0,0 +1,5 @@
+package com.r2s.core.dto;
+
+/** One role name of one user, fetched for a whole page of users at once. */
+public record UserRoleRow(Integer userId, String roleName) {
+}
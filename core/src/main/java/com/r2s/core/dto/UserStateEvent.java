@@ -0,0 +1,24 @@
+package com.r2s.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserStateEvent {
+    // id cua user trong user-service, cung la key cua record tren topic user.state
+    private Integer userId;
+    private String username;
+    private String email;
+    private String fullName;
+    private boolean deleted;
+    private List<String> roleNames;
+}
@@ -0,0 +1,8 @@
+package com.r2s.core.dto;
+
+/**
+ * Columns of a user needed for listings, read without loading the entity or
+ * its roles (see {@link UserRoleRow} for the roles of a page).
+ */
+public record UserSummaryRow(Integer id, String username, String fullname, String email, boolean deleted) {
+}
@@ -0,0 +1,57 @@
+package com.r2s.core.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Kafka message written in the same transaction as the change it describes and
+ * relayed to the broker afterwards. Rows are deleted once the broker has
+ * acknowledged them, so the table only holds messages still in flight.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxEvent {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private String topic;
+
+	// Kafka key: cung key -> cung partition -> giu thu tu theo user
+	@Column(name = "message_key", nullable = false)
+	private String messageKey;
+
+	@Column(name = "payload_type", nullable = false)
+	private String payloadType;
+
+	@Column(nullable = false, columnDefinition = "text")
+	private String payload;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	// so lan gui loi khong phai do broker tam thoi khong toi duoc
+	@Column(nullable = false)
+	private int attempts;
+
+	// != null: da vuot so lan thu, relay bo qua key nay cho toi khi xu ly tay
+	@Column(name = "parked_at")
+	private Instant parkedAt;
+}
@@ -0,0 +1,51 @@
+package com.r2s.core.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ledger of consumed event ids (16-byte uuid + timestamp per row). A row is
+ * written in the same transaction as the event's effect, so an event whose id
+ * is present has already been applied.
+ */
+@Entity
+@Table(name = "processed_events")
+@Getter
+@NoArgsConstructor
+public class ProcessedEvent implements Persistable<UUID> {
+	@Id
+	@Column(name = "event_id", nullable = false)
+	private UUID eventId;
+
+	@Column(name = "processed_at", nullable = false)
+	private Instant processedAt;
+
+	// id do producer gan -> luon la row moi, saveAll dung persist (khong SELECT truoc nhu merge)
+	@Transient
+	private boolean isNew = true;
+
+	public ProcessedEvent(final UUID eventId, final Instant processedAt) {
+		this.eventId = eventId;
+		this.processedAt = processedAt;
+	}
+
+	@Override
+	public UUID getId() {
+		return this.eventId;
+	}
+
+	@Override
+	public boolean isNew() {
+		return this.isNew;
+	}
+}
@@ -3,6 +3,8 @@ package com.r2s.core.entity;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.Column;
@@ -14,7 +16,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -29,8 +33,13 @@ import lombok.Setter;
 @NoArgsConstructor
 @Builder
 public class User {
+	// sequence tang 50: Hibernate cap id theo khoi (pooled), INSERT duoc gom thanh JDBC batch
+	public static final String ID_SEQUENCE = "users_seq";
+	public static final int ID_ALLOCATION_SIZE = 50;
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
 	private Integer id;
 
 	@Column(nullable = true)
@@ -47,8 +56,17 @@ public class User {
 
 	@Column(name = "deleted", nullable = false, columnDefinition = "boolean default false")
 	private boolean deleted;
+
+	// tang moi lan ghi: optimistic lock cho cap nhat profile, dong thoi la ETag cua user
+	@Version
+	@Column(nullable = false)
+	private Long version;
+
+	// LAZY: cac path ghi/kiem tra ton tai khong can role; path doc dung entity graph (findByUsername)
+	// hoac projection, con lai role cua nhieu user duoc load theo lo 100 user / query
 	@JsonManagedReference
-	@ManyToMany(fetch = FetchType.EAGER)
+	@ManyToMany(fetch = FetchType.LAZY)
+	@BatchSize(size = 100)
 	@JoinTable(name = "user_role", joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"), inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id"))
 	@Builder.Default
 	private List<Role> roles = new ArrayList<>();
@@ -0,0 +1,22 @@
+package com.r2s.core.exception;
+
+import com.r2s.core.response.ErrorCode;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class InvalidRequestException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ErrorCode errorCode = ErrorCode.BAD_REQUEST;
+	private final String domain;
+	private String message;
+
+	public InvalidRequestException(final String domain, final String message) {
+		this.domain = domain;
+		this.message = message;
+	}
+}
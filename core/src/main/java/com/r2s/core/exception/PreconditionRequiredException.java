@@ -0,0 +1,23 @@
+package com.r2s.core.exception;
+
+import com.r2s.core.response.ErrorCode;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// request ghi thieu header dieu kien (If-Match) ma endpoint bat buoc -> 428
+@Getter
+@Setter
+public class PreconditionRequiredException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ErrorCode errorCode = ErrorCode.PRECONDITION_REQUIRED;
+	private final String domain;
+	private String message;
+
+	public PreconditionRequiredException(final String domain, final String message) {
+		this.domain = domain;
+		this.message = message;
+	}
+}
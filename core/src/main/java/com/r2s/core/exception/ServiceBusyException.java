@@ -0,0 +1,24 @@
+package com.r2s.core.exception;
+
+import com.r2s.core.response.ErrorCode;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ServiceBusyException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ErrorCode errorCode = ErrorCode.SERVICE_UNAVAILABLE;
+	private final String domain;
+	private String message;
+	private final long retryAfterSeconds;
+
+	public ServiceBusyException(final String domain, final String message, final long retryAfterSeconds) {
+		this.domain = domain;
+		this.message = message;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
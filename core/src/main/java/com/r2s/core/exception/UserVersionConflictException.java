@@ -0,0 +1,24 @@
+package com.r2s.core.exception;
+
+import com.r2s.core.response.ErrorCode;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// user da bi sua boi request khac: version client gui len (If-Match) khong con khop
+@Getter
+@Setter
+public class UserVersionConflictException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ErrorCode errorCode = ErrorCode.PRECONDITION_FAILED;
+	private final String domain = "user";
+	private String message;
+	private final Long currentVersion;
+
+	public UserVersionConflictException(final String message, final Long currentVersion) {
+		this.message = message;
+		this.currentVersion = currentVersion;
+	}
+}
@@ -3,17 +3,25 @@ package com.r2s.core.handler;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.r2s.core.exception.InvalidRequestException;
+import com.r2s.core.exception.PreconditionRequiredException;
+import com.r2s.core.exception.ServiceBusyException;
+import com.r2s.core.exception.UserAlreadyExistException;
 import com.r2s.core.exception.UserNotFoundException;
+import com.r2s.core.exception.UserVersionConflictException;
 import com.r2s.core.response.ErrorCode;
 import com.r2s.core.response.ErrorResponse;
 
@@ -27,22 +35,58 @@ public class GlobalExceptionHandler {
 		return ErrorResponse.of(ex.getErrorCode(), ex.getDomain(), ex.getMessage());
 	}
 
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+	@ExceptionHandler({ InvalidRequestException.class })
+	public ErrorResponse handle(final InvalidRequestException ex) {
+		return ErrorResponse.of(ex.getErrorCode(), ex.getDomain(), ex.getMessage());
+	}
+
+	@ResponseStatus(value = HttpStatus.CONFLICT)
+	@ExceptionHandler({ UserAlreadyExistException.class })
+	public ErrorResponse handle(final UserAlreadyExistException ex) {
+		return ErrorResponse.of(ex.getErrorCode(), ex.getDomain(), ex.getMessage());
+	}
+
+	// If-Match khong khop -> 412 kem ETag hien tai de client doc lai truoc khi ghi
+	@ExceptionHandler({ UserVersionConflictException.class })
+	public ResponseEntity<ErrorResponse> handle(final UserVersionConflictException ex) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+		if (ex.getCurrentVersion() != null) {
+			response.eTag("\"" + ex.getCurrentVersion() + "\"");
+		}
+		return response.body(ErrorResponse.of(ex.getErrorCode(), ex.getDomain(), ex.getMessage()));
+	}
+
+	@ResponseStatus(value = HttpStatus.PRECONDITION_REQUIRED)
+	@ExceptionHandler({ PreconditionRequiredException.class })
+	public ErrorResponse handle(final PreconditionRequiredException ex) {
+		return ErrorResponse.of(ex.getErrorCode(), ex.getDomain(), ex.getMessage());
+	}
+
+	// he thong dang qua tai (vd: hang doi hash password day) -> 503 + Retry-After
+	@ExceptionHandler({ ServiceBusyException.class })
+	public ResponseEntity<ErrorResponse> handle(final ServiceBusyException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(ErrorResponse.of(ex.getErrorCode(), ex.getDomain(), ex.getMessage()));
+	}
+
 	@ResponseStatus(value = HttpStatus.FORBIDDEN)
 	@ExceptionHandler({ AuthorizationDeniedException.class, AccessDeniedException.class })
 	public ErrorResponse handleAuthorizationDenied(final Exception exception) {
 		return ErrorResponse.of(ErrorCode.BAD_REQUEST, "security", "Access Denied");
 	}
 
-	@ExceptionHandler(BadCredentialsException.class)
+	@ExceptionHandler({ BadCredentialsException.class, DisabledException.class })
 	@ResponseStatus(HttpStatus.UNAUTHORIZED)
-	public ErrorResponse handleBadCredentials(BadCredentialsException ex) {
+	public ErrorResponse handleBadCredentials(AuthenticationException ex) {
 		return ErrorResponse.of(ErrorCode.UNAUTHORIZED, "auth", "Invalid username or password");
 	}
 
 	@ExceptionHandler({ Exception.class })
 	public ResponseEntity<ErrorResponse> handle(final Exception ex) {
 		// Handle BadCredentialsException here since Spring is matching this handler first
-		if (ex instanceof BadCredentialsException) {
+		if (ex instanceof BadCredentialsException || ex instanceof DisabledException) {
 			return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
 					.body(ErrorResponse.of(ErrorCode.UNAUTHORIZED, "auth", "Invalid username or password"));
 		}
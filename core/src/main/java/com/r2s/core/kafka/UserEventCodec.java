@@ -0,0 +1,274 @@
+package com.r2s.core.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.dto.UserCacheInvalidationEvent;
+import com.r2s.core.dto.UserStateEvent;
+
+/**
+ * Compact binary form of the user events exchanged over Kafka.
+ * <p>
+ * Layout: {@code MAGIC, schema version, event type, fields...}. Integers are
+ * varints, strings are a varint length (0 = null, otherwise length + 1)
+ * followed by UTF-8 bytes.
+ * <p>
+ * Compatibility rule: fields are only ever appended and the schema version is
+ * bumped when they are. A reader decodes the fields it knows and ignores any
+ * trailing bytes written by a newer version; a payload that ends before a
+ * field (written by an older version) leaves that field and the ones after it
+ * at their default value. A payload cut off inside a field is rejected.
+ */
+public final class UserEventCodec {
+	// JSON luon bat dau bang '{' / khoang trang, nen byte dau phan biet duoc hai dinh dang
+	public static final byte MAGIC = (byte) 0xC5;
+	public static final byte SCHEMA_VERSION = 1;
+
+	static final byte TYPE_CREATE_USER_PROFILE = 1;
+	static final byte TYPE_USER_CACHE_INVALIDATION = 2;
+	static final byte TYPE_USER_STATE = 3;
+
+	private static final int HEADER_LENGTH = 3;
+
+	private UserEventCodec() {
+	}
+
+	public static boolean supports(final Object event) {
+		return event instanceof CreateUserProfileDTO || event instanceof UserCacheInvalidationEvent
+				|| event instanceof UserStateEvent;
+	}
+
+	public static boolean isBinary(final byte[] data) {
+		return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC;
+	}
+
+	public static byte[] encode(final Object event) {
+		Writer out = new Writer();
+		out.writeByte(MAGIC);
+		out.writeByte(SCHEMA_VERSION);
+		if (event instanceof CreateUserProfileDTO dto) {
+			out.writeByte(TYPE_CREATE_USER_PROFILE);
+			out.writeUuid(dto.getEventId());
+			out.writeVarInt(dto.getEventVersion());
+			out.writeNullableInt(dto.getUserId());
+			out.writeString(dto.getUsername());
+			out.writeString(dto.getEmail());
+			out.writeString(dto.getFullName());
+			out.writeStrings(dto.getRoleNames());
+		} else if (event instanceof UserCacheInvalidationEvent invalidation) {
+			out.writeByte(TYPE_USER_CACHE_INVALIDATION);
+			out.writeString(invalidation.getUsername());
+			out.writeString(invalidation.getReason());
+		} else if (event instanceof UserStateEvent state) {
+			out.writeByte(TYPE_USER_STATE);
+			out.writeNullableInt(state.getUserId());
+			out.writeString(state.getUsername());
+			out.writeString(state.getEmail());
+			out.writeString(state.getFullName());
+			out.writeByte(state.isDeleted() ? 1 : 0);
+			out.writeStrings(state.getRoleNames());
+		} else {
+			throw new SerializationException("No binary encoding for " + event.getClass().getName());
+		}
+		return out.toByteArray();
+	}
+
+	public static Object decode(final byte[] data) {
+		if (!isBinary(data)) {
+			throw new SerializationException("Not a binary user event");
+		}
+		Reader in = new Reader(data, HEADER_LENGTH);
+		try {
+			return switch (data[2]) {
+			case TYPE_CREATE_USER_PROFILE -> CreateUserProfileDTO.builder().eventId(in.readUuid())
+					.eventVersion(in.readVarInt()).userId(in.readNullableInt()).username(in.readString())
+					.email(in.readString()).fullName(in.readString()).roleNames(in.readStrings()).build();
+			case TYPE_USER_CACHE_INVALIDATION -> UserCacheInvalidationEvent.builder().username(in.readString())
+					.reason(in.readString()).build();
+			case TYPE_USER_STATE -> UserStateEvent.builder().userId(in.readNullableInt()).username(in.readString())
+					.email(in.readString()).fullName(in.readString()).deleted(in.readBoolean())
+					.roleNames(in.readStrings()).build();
+			default -> throw new SerializationException(
+					"Unknown binary user event type " + data[2] + " (schema version " + data[1] + ")");
+			};
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new SerializationException("Truncated binary user event (schema version " + data[1] + ")", e);
+		}
+	}
+
+	private static final class Writer {
+		private byte[] buffer = new byte[128];
+		private int position;
+
+		void writeByte(final int value) {
+			this.ensure(1);
+			this.buffer[this.position++] = (byte) value;
+		}
+
+		void writeVarInt(final int value) {
+			int v = value;
+			while ((v & ~0x7F) != 0) {
+				this.writeByte((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			this.writeByte(v);
+		}
+
+		void writeNullableInt(final Integer value) {
+			if (value == null) {
+				this.writeByte(0);
+				return;
+			}
+			this.writeByte(1);
+			this.writeVarInt((value << 1) ^ (value >> 31));
+		}
+
+		void writeUuid(final UUID value) {
+			if (value == null) {
+				this.writeByte(0);
+				return;
+			}
+			this.writeByte(1);
+			this.writeLong(value.getMostSignificantBits());
+			this.writeLong(value.getLeastSignificantBits());
+		}
+
+		void writeLong(final long value) {
+			this.ensure(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				this.buffer[this.position++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeString(final String value) {
+			if (value == null) {
+				this.writeVarInt(0);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			this.writeVarInt(bytes.length + 1);
+			this.ensure(bytes.length);
+			System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+			this.position += bytes.length;
+		}
+
+		void writeStrings(final List<String> values) {
+			if (values == null) {
+				this.writeVarInt(0);
+				return;
+			}
+			this.writeVarInt(values.size() + 1);
+			for (String value : values) {
+				this.writeString(value);
+			}
+		}
+
+		private void ensure(final int extra) {
+			if (this.position + extra > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + extra));
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, this.position);
+		}
+	}
+
+	private static final class Reader {
+		private final byte[] data;
+		private int position;
+
+		Reader(final byte[] data, final int position) {
+			this.data = data;
+			this.position = position;
+		}
+
+		// cac ham read* doc mot field: payload cua version cu ket thuc truoc field -> gia tri mac dinh
+		private boolean atEnd() {
+			return this.position >= this.data.length;
+		}
+
+		int readVarInt() {
+			return this.atEnd() ? 0 : this.varInt();
+		}
+
+		Integer readNullableInt() {
+			if (this.atEnd() || this.data[this.position++] == 0) {
+				return null;
+			}
+			int zigzag = this.varInt();
+			return (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+
+		boolean readBoolean() {
+			return !this.atEnd() && this.data[this.position++] != 0;
+		}
+
+		UUID readUuid() {
+			if (this.atEnd() || this.data[this.position++] == 0) {
+				return null;
+			}
+			return new UUID(this.readLong(), this.readLong());
+		}
+
+		String readString() {
+			return this.atEnd() ? null : this.string();
+		}
+
+		List<String> readStrings() {
+			if (this.atEnd()) {
+				return null;
+			}
+			int size = this.varInt();
+			if (size == 0) {
+				return null;
+			}
+			List<String> values = new ArrayList<>(Math.min(size - 1, this.data.length - this.position));
+			for (int i = 1; i < size; i++) {
+				values.add(this.string());
+			}
+			return values;
+		}
+
+		// phan ben trong mot field: het du lieu o day la payload bi cat -> ArrayIndexOutOfBoundsException
+		private int varInt() {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				byte b = this.data[this.position++];
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new SerializationException("Malformed varint at offset " + this.position);
+		}
+
+		private long readLong() {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (this.data[this.position++] & 0xFF);
+			}
+			return value;
+		}
+
+		private String string() {
+			int length = this.varInt();
+			if (length == 0) {
+				return null;
+			}
+			length--;
+			if (length > this.data.length - this.position) {
+				throw new ArrayIndexOutOfBoundsException(length);
+			}
+			String value = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			return value;
+		}
+	}
+}
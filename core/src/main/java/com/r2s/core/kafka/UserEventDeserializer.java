@@ -0,0 +1,43 @@
+package com.r2s.core.kafka;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Value deserializer for user events that reads both wire formats: records
+ * starting with {@link UserEventCodec#MAGIC} are decoded as binary, anything
+ * else is handed to Spring's {@link JsonDeserializer} (type mapping and trusted
+ * packages come from the usual {@code spring.json.*} consumer properties).
+ */
+public class UserEventDeserializer implements Deserializer<Object> {
+	private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+	@Override
+	public void configure(final Map<String, ?> configs, final boolean isKey) {
+		this.json.configure(configs, isKey);
+	}
+
+	@Override
+	public Object deserialize(final String topic, final byte[] data) {
+		if (UserEventCodec.isBinary(data)) {
+			return UserEventCodec.decode(data);
+		}
+		return this.json.deserialize(topic, data);
+	}
+
+	@Override
+	public Object deserialize(final String topic, final Headers headers, final byte[] data) {
+		if (UserEventCodec.isBinary(data)) {
+			return UserEventCodec.decode(data);
+		}
+		return this.json.deserialize(topic, headers, data);
+	}
+
+	@Override
+	public void close() {
+		this.json.close();
+	}
+}
@@ -0,0 +1,57 @@
+package com.r2s.core.kafka;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Value serializer for user events. With {@code user.events.codec=binary}
+ * known events are written by {@link UserEventCodec}; anything else, and every
+ * event when the codec is {@code json} (default), goes through Spring's
+ * {@link JsonSerializer} configured from the same producer properties.
+ * <p>
+ * Roll-out order: deploy {@link UserEventDeserializer} on every consumer
+ * first, then switch producers to binary.
+ */
+public class UserEventSerializer implements Serializer<Object> {
+	public static final String CODEC_CONFIG = "user.events.codec";
+
+	private final JsonSerializer<Object> json = new JsonSerializer<>();
+	private boolean binary;
+
+	@Override
+	public void configure(final Map<String, ?> configs, final boolean isKey) {
+		Object codec = configs.get(CODEC_CONFIG);
+		this.binary = codec != null && "binary".equals(codec.toString().trim().toLowerCase(Locale.ROOT));
+		this.json.configure(configs, isKey);
+	}
+
+	@Override
+	public byte[] serialize(final String topic, final Object data) {
+		if (this.binary && UserEventCodec.supports(data)) {
+			return UserEventCodec.encode(data);
+		}
+		return this.json.serialize(topic, data);
+	}
+
+	@Override
+	public byte[] serialize(final String topic, final Headers headers, final Object data) {
+		if (this.binary && UserEventCodec.supports(data)) {
+			// header __TypeId__ cu (vd record JSON duoc chuyen sang retry topic) bi bo qua khi doc binary
+			return UserEventCodec.encode(data);
+		}
+		return this.json.serialize(topic, headers, data);
+	}
+
+	public boolean isBinary() {
+		return this.binary;
+	}
+
+	@Override
+	public void close() {
+		this.json.close();
+	}
+}
@@ -0,0 +1,33 @@
+package com.r2s.core.repository;
+
+import com.r2s.core.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // batch cu nhat theo id, bo qua key da bi park (ke ca event moi ghi sau cua key do).
+    // Khong khoa dong: chi 1 instance relay tai 1 thoi diem (OutboxRelayLock)
+    @Query(value = "select * from outbox_events o where o.parked_at is null and not exists "
+            + "(select 1 from outbox_events p where p.message_key = o.message_key and p.parked_at is not null) "
+            + "order by o.id limit :limit", nativeQuery = true)
+    List<OutboxEvent> findNextBatch(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1 where e.id in :ids")
+    int incrementAttempts(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.parkedAt = :parkedAt where e.messageKey in :keys and e.parkedAt is null")
+    int parkKeys(@Param("keys") Collection<String> keys, @Param("parkedAt") Instant parkedAt);
+}
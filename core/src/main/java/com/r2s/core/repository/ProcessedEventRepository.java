@@ -0,0 +1,29 @@
+package com.r2s.core.repository;
+
+import com.r2s.core.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, UUID> {
+    // 1 = event moi (da ghi vao ledger), 0 = da xu ly; redelivery dong thoi se cho transaction kia commit
+    @Modifying
+    @Query(value = "insert into processed_events (event_id, processed_at) values (:eventId, now()) on conflict do nothing",
+            nativeQuery = true)
+    int claim(@Param("eventId") UUID eventId);
+
+    @Query("select p.eventId from ProcessedEvent p where p.eventId in :eventIds")
+    List<UUID> findProcessedIds(@Param("eventIds") Collection<UUID> eventIds);
+
+    @Modifying
+    @Query("delete from ProcessedEvent p where p.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+}
@@ -1,15 +1,128 @@
 package com.r2s.core.repository;
 
+import com.r2s.core.dto.UserCredentialsRow;
+import com.r2s.core.dto.UserProfileRow;
+import com.r2s.core.dto.UserRoleRow;
+import com.r2s.core.dto.UserSummaryRow;
 import com.r2s.core.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
+    // user + roles trong 1 query (roles la LAZY)
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
-    Optional<User> findByEmail(String email);
+
+    // kiem tra trung khong phan biet hoa thuong, dung index lower(username) / lower(email)
+    @Query("select count(u) > 0 from User u where lower(u.username) = lower(:username)")
+    boolean existsByUsernameIgnoreCase(@Param("username") String username);
+
+    @Query("select count(u) > 0 from User u where lower(u.email) = lower(:email) and u.username <> :username")
+    boolean existsByEmailIgnoreCaseAndUsernameNot(@Param("email") String email, @Param("username") String username);
+
+    // chi lay username, password, deleted va roleName (1 dong / role) - khong load entity User/Role
+    @Query("select new com.r2s.core.dto.UserCredentialsRow(u.username, u.password, u.deleted, r.roleName) "
+            + "from User u left join u.roles r where u.username = :username")
+    List<UserCredentialsRow> findCredentialsByUsername(@Param("username") String username);
+
+    // danh sach user theo keyset (id / username deu co index): trang dau sap xep theo sort,
+    // cac trang sau bat dau ngay sau cursor - khong OFFSET, khong load entity/roles
+    @Query("select new com.r2s.core.dto.UserSummaryRow(u.id, u.username, u.fullname, u.email, u.deleted) from User u")
+    List<UserSummaryRow> findSummaries(Sort sort, Limit limit);
+
+    @Query("select new com.r2s.core.dto.UserSummaryRow(u.id, u.username, u.fullname, u.email, u.deleted) "
+            + "from User u where u.id > :id order by u.id asc")
+    List<UserSummaryRow> findSummariesAfterId(@Param("id") Integer id, Limit limit);
+
+    @Query("select new com.r2s.core.dto.UserSummaryRow(u.id, u.username, u.fullname, u.email, u.deleted) "
+            + "from User u where u.id < :id order by u.id desc")
+    List<UserSummaryRow> findSummariesBeforeId(@Param("id") Integer id, Limit limit);
+
+    @Query("select new com.r2s.core.dto.UserSummaryRow(u.id, u.username, u.fullname, u.email, u.deleted) "
+            + "from User u where u.username > :username order by u.username asc")
+    List<UserSummaryRow> findSummariesAfterUsername(@Param("username") String username, Limit limit);
+
+    @Query("select new com.r2s.core.dto.UserSummaryRow(u.id, u.username, u.fullname, u.email, u.deleted) "
+            + "from User u where u.username < :username order by u.username desc")
+    List<UserSummaryRow> findSummariesBeforeUsername(@Param("username") String username, Limit limit);
+
+    // role cua ca 1 trang user trong 1 query
+    @Query("select new com.r2s.core.dto.UserRoleRow(u.id, r.roleName) from User u join u.roles r where u.id in :ids")
+    List<UserRoleRow> findRoleNamesByUserIds(@Param("ids") Collection<Integer> ids);
+
+    // userId -> role names (user khong co role: khong co trong map)
+    default Map<Integer, List<String>> findRoleNamesGroupedByUserId(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return findRoleNamesByUserIds(ids).stream().collect(Collectors.groupingBy(UserRoleRow::userId,
+                Collectors.mapping(UserRoleRow::roleName, Collectors.toList())));
+    }
+
+    // username nao trong danh sach da ton tai (1 query cho ca batch)
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // tao profile tu event: bo qua neu username da ton tai, tra ve id neu insert duoc (khong SELECT truoc).
+    // Chi conflict tren username: email da thuoc user khac -> loi unique, event di qua retry / DLT thay vi bi bo
+    // id lay thang tu sequence: moi gia tri nextval la dau mot khoi rieng, khong trung voi khoi Hibernate dang cap
+    @Query(value = "insert into users (id, username, email, fullname, password, deleted) "
+            + "values (nextval('" + User.ID_SEQUENCE + "'), :username, :email, :fullname, :password, false) "
+            + "on conflict (username) do nothing returning id", nativeQuery = true)
+    List<Integer> insertIfAbsent(@Param("username") String username, @Param("email") String email,
+            @Param("fullname") String fullname, @Param("password") String password);
+
+    // gan role theo ten trong 1 statement, tra ve ten cac role thuc su duoc gan (ten khong ton tai bi bo qua)
+    @Query(value = "with inserted as (insert into user_role (user_id, role_id) select :userId, r.id from roles r "
+            + "where r.role_name in (:roleNames) returning role_id) "
+            + "select r.role_name from inserted i join roles r on r.id = i.role_id order by r.role_name",
+            nativeQuery = true)
+    List<String> insertUserRoles(@Param("userId") Integer userId, @Param("roleNames") Collection<String> roleNames);
+
+    // version hien tai cua user (khong load entity)
+    @Query("select u.version from User u where u.username = :username")
+    Optional<Long> findVersionByUsername(@Param("username") String username);
+
+    // cap nhat profile trong 1 statement: chi ghi cot duoc gui (null = giu nguyen), tang version,
+    // chi khi version khop (null = khong kiem tra) va email chua co user khac dung (khong phan biet hoa thuong).
+    // Tra ve profile sau khi ghi kem role; rong khi user khong ton tai, sai version hoac trung email.
+    // Trung email dung hoa thuong do 2 request dong thoi: unique constraint -> DataIntegrityViolationException
+    @Transactional
+    @Query(value = "with updated as (update users set "
+            + "fullname = coalesce(cast(:fullname as varchar), fullname), "
+            + "email = coalesce(cast(:email as varchar), email), version = version + 1 "
+            + "where username = :username "
+            + "and (cast(:version as bigint) is null or version = cast(:version as bigint)) "
+            + "and (cast(:email as varchar) is null or not exists (select 1 from users o "
+            + "where lower(o.email) = lower(cast(:email as varchar)) and o.username <> :username)) "
+            + "returning id, username, email, fullname, deleted, version) "
+            + "select u.id as \"id\", u.username as \"username\", u.email as \"email\", "
+            + "u.fullname as \"fullname\", u.deleted as \"deleted\", u.version as \"version\", "
+            + "(select string_agg(r.role_name, ',' order by r.role_name) from user_role ur "
+            + "join roles r on r.id = ur.role_id where ur.user_id = u.id) as \"roleNames\" "
+            + "from updated u", nativeQuery = true)
+    Optional<UserProfileRow> updateProfile(@Param("username") String username, @Param("fullname") String fullname,
+            @Param("email") String email, @Param("version") Long expectedVersion);
+
+    // rehash khi login: chi update cot password, khong load entity
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
 }
 
 
@@ -1,5 +1,5 @@
 package com.r2s.core.response;
 
 public enum ErrorCode {
-	OK, NOT_FOUND, INVALID, MAX, MIN, INTERNAL_SERVER, ALREADY_EXIT, BAD_REQUEST, FORBIDDEN, UNAUTHORIZED;
+	OK, NOT_FOUND, INVALID, MAX, MIN, INTERNAL_SERVER, ALREADY_EXIT, BAD_REQUEST, FORBIDDEN, UNAUTHORIZED, TOO_MANY_REQUESTS, SERVICE_UNAVAILABLE, PRECONDITION_FAILED, PRECONDITION_REQUIRED;
 }
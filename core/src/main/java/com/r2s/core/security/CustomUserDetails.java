@@ -1,47 +1,68 @@
 package com.r2s.core.security;
 
+import com.r2s.core.dto.UserCredentialsRow;
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
-import lombok.AllArgsConstructor;
+import com.r2s.core.util.VerifiedClaims;
 import lombok.Getter;
-import lombok.Setter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
-@AllArgsConstructor
+/**
+ * Immutable principal kept in the security context. Holds only the username,
+ * password hash, enabled flag and an interned {@link RoleAuthorities} - never
+ * JPA entities.
+ */
 @Getter
-@Setter
-public class CustomUserDetails implements UserDetails {
+public final class CustomUserDetails implements UserDetails {
     private static final long serialVersionUID = 1L;
     private final String username;
     private final String password;
-    private final Set<GrantedAuthority>authorities;//vi du:role_ADMIN,....
-    private final Set<Role>role;//role o duoi db binh thuong
+    private final RoleAuthorities roles;//interned, dung chung giua cac principal cung role
+    private final boolean enabled;//false khi user da bi xoa mem (deleted)
+
+    public CustomUserDetails(final String username, final String password, final RoleAuthorities roles,
+            final boolean enabled) {
+        this.username = username;
+        this.password = password;
+        this.roles = roles == null ? RoleAuthorities.NONE : roles;
+        this.enabled = enabled;
+    }
 
     public CustomUserDetails(final User user){
-        this.username=user.getUsername();
-        this.password=user.getPassword();
-        if (user.getRoles() != null && !user.getRoles().isEmpty()) {
-            this.authorities=user.getRoles().stream()
-                    .map(role->new SimpleGrantedAuthority("ROLE_" + role.getRoleName().toUpperCase()))
-                    .collect(Collectors.toSet());
-            this.role=user.getRoles().stream().collect(Collectors.toSet());
-        } else {
-            this.authorities = Set.of();
-            this.role = Set.of();
-        }
+        this(user.getUsername(), user.getPassword(), RoleAuthorities.of(user.getRoles() == null ? List.of()
+                : user.getRoles().stream().map(Role::getRoleName).toList()), !user.isDeleted());
+    }
+
+    // dung tu projection (username, password, deleted, roleName), khong can entity
+    public CustomUserDetails(final String username, final String password, final boolean deleted,
+            final Collection<String> roleNames) {
+        this(username, password, RoleAuthorities.of(roleNames), !deleted);
+    }
+
+    public static CustomUserDetails fromRows(final List<UserCredentialsRow> rows) {
+        UserCredentialsRow first = rows.get(0);
+        List<String> roleNames = rows.stream().map(UserCredentialsRow::roleName).filter(Objects::nonNull).toList();
+        return new CustomUserDetails(first.username(), first.password(), first.deleted(), roleNames);
+    }
+
+    // dung lai principal tu claims da xac thuc, khong truy van DB (khong co password)
+    public static CustomUserDetails fromClaims(final VerifiedClaims claims) {
+        List<String> roleNames = !claims.roles().isEmpty() ? claims.roles()
+                : claims.authorities().stream().map(authority -> authority.replaceFirst("^ROLE_", "")).toList();
+        return new CustomUserDetails(claims.subject(), null, RoleAuthorities.of(roleNames), true);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return this.authorities;
+        return this.roles.getAuthorities();
     }
+
     @Override
     public String getPassword() {
         return this.password;
@@ -52,8 +73,9 @@ public class CustomUserDetails implements UserDetails {
         return this.username;
     }
 
-    public Set<Role> getRole() {
-        return this.role;
+    // role o duoi db, vi du: USER, ADMIN
+    public Set<String> getRoleNames() {
+        return this.roles.getRoleNames();
     }
 
     @Override
@@ -73,6 +95,6 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;
+        return this.enabled;
     }
 }
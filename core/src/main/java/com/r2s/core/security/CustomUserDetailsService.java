@@ -1,21 +1,44 @@
 package com.r2s.core.security;
 
-import com.r2s.core.entity.User;
+import com.r2s.core.dto.UserCredentialsRow;
 import com.r2s.core.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
 @RequiredArgsConstructor
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user=this.userRepository.findByUsername(username).orElseThrow(()->new RuntimeException("Can not found UserName: "+username));
-        return  new CustomUserDetails(user);
+        return this.userDetailsCache.get(username, this::loadFromDatabase)
+                .orElseThrow(()->new RuntimeException("Can not found UserName: "+username));
     }
-}
 
+    // DaoAuthenticationProvider goi sau khi login thanh cong neu hash cu (khong prefix / cost thap hon hien tai)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        this.userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        this.userDetailsCache.evict(user.getUsername());
+        log.debug("Rehashed password for user {}", user.getUsername());
+        return user instanceof CustomUserDetails details
+                ? new CustomUserDetails(details.getUsername(), newPassword, details.getRoles(), details.isEnabled())
+                : user;
+    }
+
+    // 1 query projection (username, password, deleted, roleName) thay vi load ca entity User + roles
+    private Optional<CustomUserDetails> loadFromDatabase(String username) {
+        List<UserCredentialsRow> rows = this.userRepository.findCredentialsByUsername(username);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(CustomUserDetails.fromRows(rows));
+    }
+}
@@ -1,18 +1,23 @@
 package com.r2s.core.security;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.r2s.core.constant.SecurityConstants;
-import com.r2s.core.util.JwtUtils;
+import com.r2s.core.util.VerifiedClaims;
+import com.r2s.core.util.VerifiedTokenCache;
 
 import io.jsonwebtoken.lang.Strings;
 import jakarta.servlet.FilterChain;
@@ -21,13 +26,24 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-	private final JwtUtils jwtUtils;
+	private final VerifiedTokenCache tokenCache;
 	private final UserDetailsService userDetailsService;
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	// CLAIMS: dung principal tu token; DATABASE: load user tu DB moi request
+	@Value("${security.principal.mode:DATABASE}")
+	private PrincipalMode principalMode = PrincipalMode.DATABASE;
+
+	// cac path luon can du lieu moi tu DB, ke ca khi mode = CLAIMS; "<METHOD> <pattern>" chi ap dung cho method do
+	@Value("${security.principal.database-paths:}")
+	private List<String> databasePaths = List.of();
 
 	@Override
 	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
@@ -36,41 +52,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		// Get JWT token from HTTP request
 		String token = this.getTokenFromRequest(request);
 
-		// Validate Token
-		// hasText(token):kiểm tra token có tồn tại hay không
-        if (StringUtils.hasText(token)) {
-            boolean isValidToken = this.jwtUtils.validateToken(token);
-            if (isValidToken) {
-                String userName = this.jwtUtils.extractUsername(token);
-
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userName);
-                
-                // Debug: Log authorities
-                System.out.println("=== DEBUG JWT Authentication ===");
-                System.out.println("Username: " + userName);
-                System.out.println("Authorities: " + userDetails.getAuthorities());
-                System.out.println("=================================");
-
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-            } else {
-                System.out.println("=== DEBUG JWT Authentication FAILED ===");
-                System.out.println("Token exists: true");
-                System.out.println("Token valid: false");
-                System.out.println("========================================");
-            }
-        } else {
-            System.out.println("=== DEBUG JWT Authentication FAILED ===");
-            System.out.println("Token exists: false");
-            System.out.println("========================================");
-        }
+		// Verify token: chu ky, han su dung va claims chi parse 1 lan (hoac lay tu cache)
+		if (StringUtils.hasText(token)) {
+			Optional<VerifiedClaims> verified = this.tokenCache.verify(token);
+			if (verified.isPresent()) {
+				VerifiedClaims claims = verified.get();
+				request.setAttribute(VerifiedClaims.REQUEST_ATTRIBUTE, claims);
+
+				UserDetails userDetails = this.usesClaims(request) ? CustomUserDetails.fromClaims(claims)
+						: this.userDetailsService.loadUserByUsername(claims.subject());
+				log.debug("JWT authenticated username={} authorities={}", claims.subject(),
+						userDetails.getAuthorities());
+
+				UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+						userDetails, null, userDetails.getAuthorities());
+				authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+				SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+			} else {
+				log.debug("JWT authentication failed: invalid or expired token");
+			}
+		}
 
 		filterChain.doFilter(request, response);
 	}
 
+	private boolean usesClaims(HttpServletRequest request) {
+		if (this.principalMode != PrincipalMode.CLAIMS) {
+			return false;
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return this.databasePaths.stream().filter(StringUtils::hasText)
+				.noneMatch(entry -> this.matches(entry.trim(), request.getMethod(), path));
+	}
+
+	private boolean matches(String entry, String method, String path) {
+		int space = entry.indexOf(' ');
+		if (space < 0) {
+			return this.pathMatcher.match(entry, path);
+		}
+		return entry.substring(0, space).equalsIgnoreCase(method)
+				&& this.pathMatcher.match(entry.substring(space + 1).trim(), path);
+	}
+
 	private String getTokenFromRequest(HttpServletRequest request) {
 		String bearerToken = request.getHeader(SecurityConstants.HEADER_STRING);
 
@@ -0,0 +1,291 @@
+package com.r2s.core.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.r2s.core.response.ErrorCode;
+import com.r2s.core.response.ErrorResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rejects login attempts with 429 before any password hashing happens, using
+ * one token bucket per client IP and one per username. Buckets are lock-free
+ * (a single CAS on the bucket's next-free time) and live in a size-bounded
+ * Caffeine map that drops keys idle for longer than {@code idleExpiry}. A
+ * successful login gives its username token back, so the per-username limit
+ * only counts failed attempts and cannot be used to lock a user out.
+ * <p>
+ * Not a {@code @Component}: the service that exposes a login endpoint
+ * registers it in its security chain.
+ */
+@Slf4j
+public class LoginThrottlingFilter extends OncePerRequestFilter implements MeterBinder {
+	// body dang nhap chi co username/password, doc toi da chung nay de tim username
+	private static final int MAX_PARSED_BODY = 4096;
+	private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+	private final RequestMatcher loginRequest;
+	private final Limit usernameLimit;
+	private final Limit ipLimit;
+	private final Cache<String, TokenBucket> buckets;
+	private final LongSupplier nanoClock;
+	private volatile Counter usernameRejections;
+	private volatile Counter ipRejections;
+
+	/** {@code capacity} attempts in a burst, refilled evenly over {@code refillPeriod}. */
+	public record Limit(int capacity, Duration refillPeriod) {
+	}
+
+	public LoginThrottlingFilter(final String loginPath, final Limit usernameLimit, final Limit ipLimit,
+			final Duration idleExpiry, final long maximumKeys) {
+		this(loginPath, usernameLimit, ipLimit, idleExpiry, maximumKeys, System::nanoTime);
+	}
+
+	LoginThrottlingFilter(final String loginPath, final Limit usernameLimit, final Limit ipLimit,
+			final Duration idleExpiry, final long maximumKeys, final LongSupplier nanoClock) {
+		this.loginRequest = new AntPathRequestMatcher(loginPath, HttpMethod.POST.name());
+		this.usernameLimit = usernameLimit;
+		this.ipLimit = ipLimit;
+		this.buckets = Caffeine.newBuilder().maximumSize(maximumKeys).expireAfterAccess(idleExpiry).build();
+		this.nanoClock = nanoClock;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		return !this.loginRequest.matches(request);
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		// IP truoc: chan ca truong hop doi username lien tuc
+		String ip = request.getRemoteAddr();
+		long retryAfterNanos = this.bucket("ip:" + ip, this.ipLimit).tryAcquire(this.nanoClock.getAsLong());
+		if (retryAfterNanos > 0) {
+			log.warn("Login throttled for ip={}", ip);
+			increment(this.ipRejections);
+			this.reject(response, retryAfterNanos);
+			return;
+		}
+
+		CachedBodyRequest cached = CachedBodyRequest.of(request);
+		String username = cached.username();
+		TokenBucket userBucket = null;
+		if (username != null) {
+			userBucket = this.bucket("user:" + username, this.usernameLimit);
+			retryAfterNanos = userBucket.tryAcquire(this.nanoClock.getAsLong());
+			if (retryAfterNanos > 0) {
+				log.warn("Login throttled for username={}", username);
+				increment(this.usernameRejections);
+				this.reject(response, retryAfterNanos);
+				return;
+			}
+		}
+
+		filterChain.doFilter(cached, response);
+
+		// dang nhap thanh cong tra lai token: gioi han username chi dem lan sai mat khau
+		if (userBucket != null && response.getStatus() >= 200 && response.getStatus() < 300) {
+			userBucket.refund();
+		}
+	}
+
+	private TokenBucket bucket(final String key, final Limit limit) {
+		return this.buckets.get(key, k -> new TokenBucket(limit));
+	}
+
+	private void reject(final HttpServletResponse response, final long retryAfterNanos) throws IOException {
+		long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+		response.setStatus(429);
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+		response.setContentType("application/json;charset=UTF-8");
+		MAPPER.writeValue(response.getWriter(), ErrorResponse.of(ErrorCode.TOO_MANY_REQUESTS, "auth",
+				"Too many login attempts. Please retry later."));
+	}
+
+	private static void increment(final Counter counter) {
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	public long trackedKeys() {
+		return this.buckets.estimatedSize();
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		this.usernameRejections = Counter.builder("auth.login.throttled").tag("key", "username")
+				.description("Login attempts rejected by the per-username limit").register(registry);
+		this.ipRejections = Counter.builder("auth.login.throttled").tag("key", "ip")
+				.description("Login attempts rejected by the per-IP limit").register(registry);
+		Gauge.builder("auth.login.throttle.keys", this, LoginThrottlingFilter::trackedKeys)
+				.description("Usernames and IPs currently tracked").register(registry);
+	}
+
+	/**
+	 * Token bucket stored as the time at which the bucket would be full again
+	 * (GCRA form), so taking a token is one compare-and-set and needs no lock.
+	 */
+	static final class TokenBucket {
+		private final long intervalNanos;
+		private final long burstNanos;
+		private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+		TokenBucket(final Limit limit) {
+			this.intervalNanos = limit.refillPeriod().toNanos() / Math.max(1, limit.capacity());
+			this.burstNanos = this.intervalNanos * Math.max(1, limit.capacity());
+		}
+
+		// 0 = lay duoc token; > 0 = so nano giay phai cho
+		long tryAcquire(final long now) {
+			while (true) {
+				long current = this.fullAt.get();
+				long base = current == Long.MIN_VALUE ? now : Math.max(current, now);
+				long next = base + this.intervalNanos;
+				if (next - now > this.burstNanos) {
+					return next - now - this.burstNanos;
+				}
+				if (this.fullAt.compareAndSet(current, next)) {
+					return 0;
+				}
+			}
+		}
+
+		// tra lai token vua lay (khong vuot qua dung luong: fullAt chi lui ve phia truoc)
+		void refund() {
+			this.fullAt.getAndUpdate(v -> v == Long.MIN_VALUE ? v : v - this.intervalNanos);
+		}
+	}
+
+	/**
+	 * Reads the first bytes of the login body to find the username and replays
+	 * them (followed by the rest of the original stream) to the controller.
+	 */
+	static final class CachedBodyRequest extends HttpServletRequestWrapper {
+		private final byte[] prefix;
+		private final boolean complete;
+		private boolean consumed;
+
+		private CachedBodyRequest(final HttpServletRequest request, final byte[] prefix, final boolean complete) {
+			super(request);
+			this.prefix = prefix;
+			this.complete = complete;
+		}
+
+		static CachedBodyRequest of(final HttpServletRequest request) throws IOException {
+			byte[] prefix = request.getInputStream().readNBytes(MAX_PARSED_BODY + 1);
+			return new CachedBodyRequest(request, prefix, prefix.length <= MAX_PARSED_BODY);
+		}
+
+		// username chuan hoa chu thuong; null neu body qua lon hoac khong phai JSON
+		String username() {
+			if (!this.complete || this.prefix.length == 0) {
+				return null;
+			}
+			try {
+				JsonNode username = MAPPER.readTree(this.prefix).get("username");
+				return username != null && username.isTextual() && StringUtils.hasText(username.asText())
+						? username.asText().trim().toLowerCase(Locale.ROOT)
+						: null;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (this.consumed) {
+				throw new IllegalStateException("Request body already read");
+			}
+			this.consumed = true;
+			InputStream body = this.complete ? new ByteArrayInputStream(this.prefix)
+					: new SequenceInputStream(new ByteArrayInputStream(this.prefix), super.getInputStream());
+			return new ServletInputStream() {
+				private boolean finished;
+
+				@Override
+				public int read() throws IOException {
+					int b = body.read();
+					this.finished = b < 0;
+					return b;
+				}
+
+				@Override
+				public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+					int n = body.read(buffer, offset, length);
+					this.finished = n < 0;
+					return n;
+				}
+
+				@Override
+				public boolean isFinished() {
+					return this.finished;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(final ReadListener listener) {
+					// isReady() luon true: listener doc mot mach toi het body
+					try {
+						listener.onDataAvailable();
+						if (this.finished) {
+							listener.onAllDataRead();
+						}
+					} catch (IOException e) {
+						listener.onError(e);
+					}
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			String encoding = this.getCharacterEncoding();
+			Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+			return new BufferedReader(new InputStreamReader(this.getInputStream(), charset));
+		}
+	}
+}
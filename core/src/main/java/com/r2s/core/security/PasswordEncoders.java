@@ -0,0 +1,80 @@
+package com.r2s.core.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Password encoders shared by the services. New hashes are written as
+ * {@code {bcrypt}$2a$<cost>$...}; legacy hashes stored without an id prefix are
+ * still matched as BCrypt. {@link PasswordEncoder#upgradeEncoding} reports
+ * both un-prefixed hashes and hashes with a lower cost than the current one, so
+ * {@code DaoAuthenticationProvider} rehashes them on the next successful login.
+ */
+@Slf4j
+public final class PasswordEncoders {
+	public static final String BCRYPT_ID = "bcrypt";
+	// BCryptPasswordEncoder mac dinh = 10, khong calibrate xuong thap hon muc nay
+	public static final int DEFAULT_BCRYPT_STRENGTH = 10;
+	private static final int MAX_BCRYPT_STRENGTH = 31;
+	private static final String SAMPLE_PASSWORD = "calibration-Sample#1";
+
+	private PasswordEncoders() {
+	}
+
+	public static PasswordEncoder delegating(final int bcryptStrength) {
+		BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+		DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+		// hash cu luu khong co prefix {bcrypt}
+		encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+		return encoder;
+	}
+
+	/**
+	 * Highest BCrypt cost in {@code [minStrength, maxStrength]} whose hash time on
+	 * this machine stays within {@code target}. Each cost step doubles the work,
+	 * so the search stops at the first cost that is too slow.
+	 */
+	public static int calibrateBCryptStrength(final Duration target, final int minStrength, final int maxStrength) {
+		return calibrateBCryptStrength(target, minStrength, maxStrength, PasswordEncoders::measureBCryptNanos);
+	}
+
+	static int calibrateBCryptStrength(final Duration target, final int minStrength, final int maxStrength,
+			final IntToLongFunction hashNanos) {
+		int min = Math.max(4, minStrength);
+		int max = Math.min(MAX_BCRYPT_STRENGTH, Math.max(min, maxStrength));
+		long targetNanos = target.toNanos();
+		int chosen = min;
+		for (int strength = min; strength <= max; strength++) {
+			long nanos = hashNanos.applyAsLong(strength);
+			if (nanos > targetNanos) {
+				if (strength == min) {
+					log.warn("BCrypt cost {} already takes {} ms (> target {} ms), using it anyway", strength,
+							nanos / 1_000_000, target.toMillis());
+				}
+				break;
+			}
+			chosen = strength;
+		}
+		log.info("BCrypt cost calibrated to {} for a target of {} ms", chosen, target.toMillis());
+		return chosen;
+	}
+
+	// lay thoi gian nhanh nhat cua vai lan hash (lan dau con JIT warm-up)
+	private static long measureBCryptNanos(final int strength) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			encoder.encode(SAMPLE_PASSWORD);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+}
@@ -0,0 +1,11 @@
+package com.r2s.core.security;
+
+/**
+ * How {@link JwtAuthenticationFilter} builds the principal for a verified token.
+ */
+public enum PrincipalMode {
+	// load the user from the database on every request (fresh roles, one query per request)
+	DATABASE,
+	// trust the verified role/authorities claims, no database I/O
+	CLAIMS
+}
@@ -0,0 +1,71 @@
+package com.r2s.core.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Canonical, immutable role set of a principal. Instances are interned: every
+ * principal with the same roles shares one {@code RoleAuthorities} and one set
+ * of {@link GrantedAuthority} objects, so building a principal per request does
+ * not allocate authorities. The intern table is capped; combinations beyond the
+ * cap are still correct, just not shared.
+ */
+public final class RoleAuthorities {
+	private static final int MAX_INTERNED = 1024;
+	private static final ConcurrentMap<Set<String>, RoleAuthorities> INTERNED = new ConcurrentHashMap<>();
+	public static final RoleAuthorities NONE = new RoleAuthorities(Set.of());
+
+	private final Set<String> roleNames;
+	private final Set<GrantedAuthority> authorities;
+
+	private RoleAuthorities(final Set<String> roleNames) {
+		this.roleNames = roleNames;
+		Set<GrantedAuthority> granted = new LinkedHashSet<>();
+		roleNames.forEach(roleName -> granted.add(new SimpleGrantedAuthority("ROLE_" + roleName)));
+		this.authorities = Collections.unmodifiableSet(granted);
+	}
+
+	// roleName duoc chuan hoa ve chu hoa, vi du: user -> USER (authority ROLE_USER)
+	public static RoleAuthorities of(final Collection<String> roleNames) {
+		if (roleNames == null || roleNames.isEmpty()) {
+			return NONE;
+		}
+		Set<String> key = new TreeSet<>();
+		roleNames.stream().filter(Objects::nonNull).map(String::toUpperCase).forEach(key::add);
+		if (key.isEmpty()) {
+			return NONE;
+		}
+		RoleAuthorities interned = INTERNED.get(key);
+		if (interned != null) {
+			return interned;
+		}
+		RoleAuthorities created = new RoleAuthorities(Collections.unmodifiableSet(key));
+		if (INTERNED.size() >= MAX_INTERNED) {
+			return created;
+		}
+		RoleAuthorities raced = INTERNED.putIfAbsent(created.roleNames, created);
+		return raced != null ? raced : created;
+	}
+
+	public Set<String> getRoleNames() {
+		return this.roleNames;
+	}
+
+	public Set<GrantedAuthority> getAuthorities() {
+		return this.authorities;
+	}
+
+	@Override
+	public String toString() {
+		return this.roleNames.toString();
+	}
+}
@@ -0,0 +1,186 @@
+package com.r2s.core.security;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Size- and TTL-bounded cache in front of the database lookup in
+ * {@link CustomUserDetailsService}. Entries are evicted on every node through
+ * the {@code user.invalidated} topic when a user is updated or deleted; the TTL
+ * bounds staleness if an invalidation is missed.
+ * <p>
+ * Unknown usernames are remembered for a short time in a separate negative
+ * cache, and concurrent loads of the same username are coalesced so only one
+ * of them reaches the database. Both apply even when the positive cache is
+ * disabled. Hit ratio, load latency, negative hits and coalesced loads are
+ * published as {@code security.user-details.*} metrics.
+ */
+@Slf4j
+@Component
+public class UserDetailsCache implements MeterBinder {
+	private final Cache<String, CustomUserDetails> cache;
+	private final Cache<String, Boolean> missing;
+	private final ConcurrentMap<String, CompletableFuture<Optional<CustomUserDetails>>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder negativeHits = new LongAdder();
+	private final LongAdder coalescedLoads = new LongAdder();
+	private volatile Timer loadTimer;
+
+	public UserDetailsCache(@Value("${security.user-cache.enabled:false}") final boolean enabled,
+			@Value("${security.user-cache.maximum-size:10000}") final long maximumSize,
+			@Value("${security.user-cache.expire-after-write:5m}") final Duration expireAfterWrite,
+			@Value("${security.user-cache.negative.enabled:false}") final boolean negativeEnabled,
+			@Value("${security.user-cache.negative.maximum-size:50000}") final long negativeMaximumSize,
+			@Value("${security.user-cache.negative.expire-after-write:10s}") final Duration negativeExpireAfterWrite) {
+		this.cache = enabled ? Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite)
+				.recordStats().build() : null;
+		this.missing = negativeEnabled ? Caffeine.newBuilder().maximumSize(negativeMaximumSize)
+				.expireAfterWrite(negativeExpireAfterWrite).build() : null;
+	}
+
+	public Optional<CustomUserDetails> get(final String username,
+			final Function<String, Optional<CustomUserDetails>> loader) {
+		if (this.missing != null && this.missing.getIfPresent(username) != null) {
+			this.negativeHits.increment();
+			return Optional.empty();
+		}
+		if (this.cache != null) {
+			CustomUserDetails cached = this.cache.getIfPresent(username);
+			if (cached != null) {
+				return Optional.of(cached);
+			}
+		}
+		return this.loadOnce(username, loader);
+	}
+
+	// single-flight: request dau tien query DB, cac request dong thoi cho chung ket qua
+	private Optional<CustomUserDetails> loadOnce(final String username,
+			final Function<String, Optional<CustomUserDetails>> loader) {
+		CompletableFuture<Optional<CustomUserDetails>> flight = new CompletableFuture<>();
+		CompletableFuture<Optional<CustomUserDetails>> existing = this.inFlight.putIfAbsent(username, flight);
+		if (existing != null) {
+			this.coalescedLoads.increment();
+			return await(existing);
+		}
+		long start = System.nanoTime();
+		try {
+			Optional<CustomUserDetails> result = loader.apply(username);
+			this.recordLoad(start);
+			// evict() trong luc dang load se xoa flight -> khong cache ket qua cu
+			if (this.inFlight.remove(username, flight)) {
+				this.store(username, result);
+			}
+			flight.complete(result);
+			return result;
+		} catch (Throwable e) {
+			// ca Error (OOM, StackOverflowError...): khong de flight treo, request sau cho join() mai mai
+			this.inFlight.remove(username, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private void store(final String username, final Optional<CustomUserDetails> result) {
+		if (result.isPresent()) {
+			if (this.cache != null) {
+				this.cache.put(username, result.get());
+			}
+		} else if (this.missing != null) {
+			this.missing.put(username, Boolean.TRUE);
+		}
+	}
+
+	private void recordLoad(final long start) {
+		Timer timer = this.loadTimer;
+		if (timer != null) {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static Optional<CustomUserDetails> await(final CompletableFuture<Optional<CustomUserDetails>> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw e;
+		}
+	}
+
+	public void evict(final String username) {
+		if (username == null) {
+			return;
+		}
+		log.debug("Evicting cached user details for username={}", username);
+		this.inFlight.remove(username);
+		if (this.cache != null) {
+			this.cache.invalidate(username);
+		}
+		if (this.missing != null) {
+			this.missing.invalidate(username);
+		}
+	}
+
+	public void evictAll() {
+		this.inFlight.clear();
+		if (this.cache != null) {
+			this.cache.invalidateAll();
+		}
+		if (this.missing != null) {
+			this.missing.invalidateAll();
+		}
+	}
+
+	public boolean isEnabled() {
+		return this.cache != null;
+	}
+
+	public CacheStats stats() {
+		return this.cache == null ? CacheStats.empty() : this.cache.stats();
+	}
+
+	public long negativeHitCount() {
+		return this.negativeHits.sum();
+	}
+
+	public long coalescedLoadCount() {
+		return this.coalescedLoads.sum();
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		if (this.cache != null) {
+			CaffeineCacheMetrics.monitor(registry, this.cache, "security.user-details");
+		}
+		this.loadTimer = Timer.builder("security.user-details.load").description("Database lookups by username")
+				.register(registry);
+		FunctionCounter.builder("security.user-details.negative.hits", this.negativeHits, LongAdder::sum)
+				.description("Lookups answered by the negative cache").register(registry);
+		FunctionCounter.builder("security.user-details.coalesced", this.coalescedLoads, LongAdder::sum)
+				.description("Lookups that waited on an in-flight load").register(registry);
+	}
+}
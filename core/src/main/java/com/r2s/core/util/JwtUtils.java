@@ -1,6 +1,5 @@
 package com.r2s.core.util;
 
-import com.r2s.core.entity.Role;
 import com.r2s.core.security.CustomUserDetails;
 
 import io.jsonwebtoken.Claims;
@@ -13,6 +12,7 @@ import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -24,11 +24,13 @@ public class JwtUtils {
     @Value("${jwt.duration}") // ky thuat doc du lieu tu file properties or yml.
     private long jwtDuration;// thoi gian ton tai cua token
 
+    private volatile Key signKey;// giai ma secret 1 lan, dung lai cho moi token
+
     //tạo token
     public String generateToken(final CustomUserDetails user){
         Map<String,Object>claims=new HashMap<>();
         claims.put("authorities",user.getAuthorities().stream().map(ath-> ath.getAuthority()).toList());
-        claims.put("role",user.getRole().stream().map(Role::getRoleName).toList());
+        claims.put("role",List.copyOf(user.getRoleNames()));
         Date expirationMillis = new Date(System.currentTimeMillis() + 1000 * jwtDuration);
 
         return Jwts.builder().setClaims(claims).setSubject(user.getUsername()).setIssuedAt(new Date()).setExpiration(expirationMillis).signWith(this.getSignKey()).compact();
@@ -36,8 +38,13 @@ public class JwtUtils {
 
     //tạo khóa bí mật
     private Key getSignKey(){
-        byte[] keyBytes= Decoders.BASE64.decode(this.jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = this.signKey;
+        if (key == null) {
+            byte[] keyBytes= Decoders.BASE64.decode(this.jwtSecret);
+            key = Keys.hmacShaKeyFor(keyBytes);
+            this.signKey = key;
+        }
+        return key;
     }
 
     //lay thong tin userName
@@ -0,0 +1,50 @@
+package com.r2s.core.util;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verifies a token exactly once: signature, expiry and claim decoding happen in
+ * a single parse. The key and parser are built once at startup and are
+ * thread-safe, so the per-request cost is one HMAC and one JSON decode.
+ */
+@Slf4j
+@Component
+public class JwtVerifier {
+	private final JwtParser parser;
+
+	public JwtVerifier(@Value("${jwt.secret}") final String jwtSecret) {
+		SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+		this.parser = Jwts.parser().verifyWith(key).build();
+	}
+
+	// tra ve claims da xac thuc, rong neu token sai chu ky / het han / khong doc duoc
+	public Optional<VerifiedClaims> verify(final String token) {
+		if (!StringUtils.hasText(token)) {
+			return Optional.empty();
+		}
+		try {
+			VerifiedClaims claims = VerifiedClaims.from(this.parser.parseSignedClaims(token).getPayload());
+			if (claims.subject() == null || claims.isExpired(Instant.now())) {
+				return Optional.empty();
+			}
+			return Optional.of(claims);
+		} catch (JwtException | IllegalArgumentException e) {
+			log.debug("Rejected JWT: {}", e.getMessage());
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.r2s.core.util;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Immutable view of a token whose signature and expiry have already been
+ * checked by {@link JwtVerifier}. Stored on the request under
+ * {@link #REQUEST_ATTRIBUTE} so controllers can read it without re-parsing.
+ */
+public record VerifiedClaims(String subject, List<String> roles, List<String> authorities, Instant expiresAt) {
+
+	public static final String REQUEST_ATTRIBUTE = VerifiedClaims.class.getName();
+
+	public VerifiedClaims {
+		roles = roles == null ? List.of() : List.copyOf(roles);
+		authorities = authorities == null ? List.of() : List.copyOf(authorities);
+	}
+
+	public boolean isExpired(final Instant now) {
+		return this.expiresAt == null || !this.expiresAt.isAfter(now);
+	}
+
+	static VerifiedClaims from(final Claims claims) {
+		return new VerifiedClaims(claims.getSubject(), stringList(claims.get("role")),
+				stringList(claims.get("authorities")),
+				claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+	}
+
+	private static List<String> stringList(final Object value) {
+		if (value instanceof List<?> list) {
+			return list.stream().map(String::valueOf).toList();
+		}
+		return List.of();
+	}
+}
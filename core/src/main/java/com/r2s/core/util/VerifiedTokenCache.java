@@ -0,0 +1,104 @@
+package com.r2s.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Node-local cache of tokens that already passed {@link JwtVerifier}. Keyed by
+ * a SHA-256 digest of the token (the raw token is never held), and every entry
+ * expires no later than the token's own {@code exp}. Invalid tokens are never
+ * cached. Disabled with {@code jwt.cache.enabled=false}, in which case every
+ * call goes straight to the verifier.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+	private final JwtVerifier jwtVerifier;
+	private final Cache<String, VerifiedClaims> cache;
+
+	public VerifiedTokenCache(final JwtVerifier jwtVerifier,
+			@Value("${jwt.cache.enabled:false}") final boolean enabled,
+			@Value("${jwt.cache.maximum-size:10000}") final long maximumSize,
+			@Value("${jwt.cache.expire-after:10m}") final Duration expireAfter) {
+		this.jwtVerifier = jwtVerifier;
+		this.cache = enabled ? Caffeine.newBuilder().maximumSize(maximumSize)
+				.expireAfter(new UntilTokenExpiry(expireAfter)).recordStats().build() : null;
+	}
+
+	public Optional<VerifiedClaims> verify(final String token) {
+		if (this.cache == null || !StringUtils.hasText(token)) {
+			return this.jwtVerifier.verify(token);
+		}
+		String key = digest(token);
+		VerifiedClaims cached = this.cache.getIfPresent(key);
+		if (cached != null && !cached.isExpired(Instant.now())) {
+			return Optional.of(cached);
+		}
+		Optional<VerifiedClaims> verified = this.jwtVerifier.verify(token);
+		verified.ifPresent(claims -> this.cache.put(key, claims));
+		return verified;
+	}
+
+	public boolean isEnabled() {
+		return this.cache != null;
+	}
+
+	// hit / miss / eviction counters
+	public CacheStats stats() {
+		return this.cache == null ? CacheStats.empty() : this.cache.stats();
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		if (this.cache != null) {
+			CaffeineCacheMetrics.monitor(registry, this.cache, "jwt.verified-tokens");
+		}
+	}
+
+	private static String digest(final String token) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().withoutPadding().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private record UntilTokenExpiry(Duration maximum) implements Expiry<String, VerifiedClaims> {
+
+		@Override
+		public long expireAfterCreate(final String key, final VerifiedClaims claims, final long currentTime) {
+			long untilExpiry = Duration.between(Instant.now(), claims.expiresAt()).toNanos();
+			return Math.max(0, Math.min(untilExpiry, this.maximum.toNanos()));
+		}
+
+		@Override
+		public long expireAfterUpdate(final String key, final VerifiedClaims claims, final long currentTime,
+				final long currentDuration) {
+			return expireAfterCreate(key, claims, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(final String key, final VerifiedClaims claims, final long currentTime,
+				final long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
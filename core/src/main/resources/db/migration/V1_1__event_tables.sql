@@ -0,0 +1,18 @@
+-- Bang cua outbox (auth-service) va ledger event (user-service): chua co trong DB tao boi ddl-auto truoc day,
+-- nen tao o day (sau baseline version 1) chu khong phai trong V1. DB moi tao tu dau cung chay script nay.
+create table if not exists outbox_events (
+    id bigint generated by default as identity,
+    attempts integer not null,
+    created_at timestamp(6) with time zone not null,
+    message_key varchar(255) not null,
+    payload text not null,
+    payload_type varchar(255) not null,
+    topic varchar(255) not null,
+    primary key (id)
+);
+
+create table if not exists processed_events (
+    event_id uuid not null,
+    processed_at timestamp(6) with time zone not null,
+    primary key (event_id)
+);
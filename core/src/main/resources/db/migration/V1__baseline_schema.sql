@@ -0,0 +1,29 @@
+-- Schema cua cac entity trong core, dung nhu Hibernate ddl-auto=update da tao.
+-- DB da co bang (tao boi ddl-auto truoc day) duoc baseline o version 1 -> script nay khong chay lai,
+-- vi vay chi chua cac bang co san tu truoc (users, roles, user_role); bang moi nam o migration sau V1.
+
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists roles_seq start with 1 increment by 50;
+
+create table if not exists users (
+    id integer not null,
+    deleted boolean default false not null,
+    email varchar(255) unique,
+    fullname varchar(255),
+    password varchar(255) not null,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create table if not exists roles (
+    id integer not null,
+    description varchar(255),
+    is_active boolean default true not null,
+    role_name varchar(255) not null unique,
+    primary key (id)
+);
+
+create table if not exists user_role (
+    user_id integer not null references users (id),
+    role_id integer not null references roles (id)
+);
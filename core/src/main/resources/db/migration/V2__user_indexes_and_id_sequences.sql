@@ -0,0 +1,24 @@
+-- user_role khong co khoa/index nao: moi lan load role cua user (login, profile, trang user) la seq scan
+create index if not exists user_role_user_id_idx on user_role (user_id);
+create index if not exists user_role_role_id_idx on user_role (role_id);
+
+-- tim email/username khong phan biet hoa thuong (kiem tra trung khi dang ky / doi email)
+create index if not exists users_email_lower_idx on users (lower(email));
+create index if not exists users_username_lower_idx on users (lower(username));
+
+-- user dang hoat dong: index nho chi chua dong deleted = false, cho cac query loc theo trang thai
+create index if not exists users_active_id_idx on users (id) where deleted = false;
+
+-- purge ledger theo processed_at (ProcessedEventLedger)
+create index if not exists processed_events_processed_at_idx on processed_events (processed_at);
+
+-- DB tao truoc khi co sequence (id IDENTITY): tao sequence va day len sau id lon nhat.
+-- Sequence chua goi lan nao cung duoc set, vi pooled optimizer xu ly gia tri dau tien khac.
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists roles_seq start with 1 increment by 50;
+select setval('users_seq', greatest(t.max_id, 1))
+from (select coalesce(max(id), 0) as max_id from users) t, users_seq s
+where not s.is_called or t.max_id > s.last_value;
+select setval('roles_seq', greatest(t.max_id, 1))
+from (select coalesce(max(id), 0) as max_id from roles) t, roles_seq s
+where not s.is_called or t.max_id > s.last_value;
@@ -0,0 +1,2 @@
+-- version cho optimistic lock (User.version); default 0 cho dong cu va cac insert native khong ghi cot nay
+alter table users add column if not exists version bigint default 0 not null;
@@ -0,0 +1,4 @@
+-- outbox: event loi qua outbox.relay.max-attempts lan bi "park" (parked_at), cac event sau cua cung key
+-- cho phia sau cho toi khi duoc xu ly tay (xoa hoac set parked_at = null)
+alter table outbox_events add column if not exists parked_at timestamp(6) with time zone;
+create index if not exists outbox_events_parked_key_idx on outbox_events (message_key) where parked_at is not null;
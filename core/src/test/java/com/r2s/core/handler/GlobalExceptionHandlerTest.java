@@ -17,7 +17,12 @@ import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import com.r2s.core.exception.InvalidRequestException;
+import com.r2s.core.exception.PreconditionRequiredException;
+import com.r2s.core.exception.ServiceBusyException;
+import com.r2s.core.exception.UserAlreadyExistException;
 import com.r2s.core.exception.UserNotFoundException;
+import com.r2s.core.exception.UserVersionConflictException;
 import com.r2s.core.response.ErrorCode;
 import com.r2s.core.response.ErrorResponse;
 
@@ -120,5 +125,76 @@ class GlobalExceptionHandlerTest {
 		assertEquals("Invalid username or password", response.getBody().getMessage());
 		assertEquals("auth", response.getBody().getDomain());
 	}
-}
 
+	@Test
+	void handleServiceBusyException_shouldReturnServiceUnavailableWithRetryAfter() {
+		// Setup
+		ServiceBusyException exception = new ServiceBusyException("auth", "Login is busy, retry later", 2);
+
+		// Execute
+		ResponseEntity<ErrorResponse> response = exceptionHandler.handle(exception);
+
+		// Verify
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+		assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+		assertEquals(ErrorCode.SERVICE_UNAVAILABLE, response.getBody().getCode());
+		assertEquals("auth", response.getBody().getDomain());
+	}
+
+	@Test
+	void handleUserAlreadyExistException_shouldReturnConflictResponse() {
+		// Setup
+		UserAlreadyExistException exception = new UserAlreadyExistException("Email already exists: a@example.com");
+
+		// Execute
+		ErrorResponse response = exceptionHandler.handle(exception);
+
+		// Verify
+		assertEquals(ErrorCode.ALREADY_EXIT, response.getCode());
+		assertEquals("Email already exists: a@example.com", response.getMessage());
+		assertEquals("user", response.getDomain());
+	}
+
+	@Test
+	void handleUserVersionConflictException_shouldReturnPreconditionFailedWithCurrentETag() {
+		// Setup
+		UserVersionConflictException exception = new UserVersionConflictException("User was modified", 7L);
+
+		// Execute
+		ResponseEntity<ErrorResponse> response = exceptionHandler.handle(exception);
+
+		// Verify
+		assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+		assertEquals("\"7\"", response.getHeaders().getETag());
+		assertEquals(ErrorCode.PRECONDITION_FAILED, response.getBody().getCode());
+		assertEquals("user", response.getBody().getDomain());
+	}
+
+	@Test
+	void handlePreconditionRequiredException_shouldReturnPreconditionRequiredResponse() {
+		// Setup
+		PreconditionRequiredException exception = new PreconditionRequiredException("user", "If-Match is required");
+
+		// Execute
+		ErrorResponse response = exceptionHandler.handle(exception);
+
+		// Verify
+		assertEquals(ErrorCode.PRECONDITION_REQUIRED, response.getCode());
+		assertEquals("If-Match is required", response.getMessage());
+		assertEquals("user", response.getDomain());
+	}
+
+	@Test
+	void handleInvalidRequestException_shouldReturnBadRequestResponse() {
+		// Setup
+		InvalidRequestException exception = new InvalidRequestException("user", "Invalid cursor");
+
+		// Execute
+		ErrorResponse response = exceptionHandler.handle(exception);
+
+		// Verify
+		assertEquals(ErrorCode.BAD_REQUEST, response.getCode());
+		assertEquals("Invalid cursor", response.getMessage());
+		assertEquals("user", response.getDomain());
+	}
+}
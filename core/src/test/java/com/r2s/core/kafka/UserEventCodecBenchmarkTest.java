@@ -0,0 +1,103 @@
+package com.r2s.core.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.r2s.core.dto.CreateUserProfileDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bytes on the wire and serialize + deserialize cost of user.registered
+ * events: the previous JsonSerializer/JsonDeserializer pair against
+ * {@link UserEventCodec}. Nothing is asserted beyond a correct round trip;
+ * the numbers are logged for comparison. Excluded from the default build
+ * (the wire size is checked in {@link UserEventCodecTest}), run it with
+ * {@code mvn test -Pbenchmark -pl core}.
+ */
+@Slf4j
+@Tag("benchmark")
+class UserEventCodecBenchmarkTest {
+	private static final String TOPIC = "user.registered";
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 100_000;
+
+	private final CreateUserProfileDTO event = CreateUserProfileDTO.builder().eventId(UUID.randomUUID())
+			.eventVersion(CreateUserProfileDTO.CURRENT_VERSION).userId(123456).username("nguyenvana")
+			.email("nguyenvana@example.com").fullName("Nguyen Van A").roleNames(List.of("USER")).build();
+
+	@Test
+	void compareJsonAndBinaryCodec() {
+		Map<String, Object> producerConfig = new HashMap<>();
+		producerConfig.put("spring.json.type.mapping", "CreateUserProfileDTO:com.r2s.core.dto.CreateUserProfileDTO");
+		Map<String, Object> consumerConfig = new HashMap<>(producerConfig);
+		consumerConfig.put("spring.json.trusted.packages", "com.r2s.core.dto");
+
+		JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+		jsonSerializer.configure(producerConfig, false);
+		JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+		jsonDeserializer.configure(consumerConfig, false);
+		producerConfig.put(UserEventSerializer.CODEC_CONFIG, "binary");
+		UserEventSerializer binarySerializer = new UserEventSerializer();
+		binarySerializer.configure(producerConfig, false);
+		UserEventDeserializer binaryDeserializer = new UserEventDeserializer();
+		binaryDeserializer.configure(consumerConfig, false);
+
+		Result json = this.measure("json", jsonSerializer, jsonDeserializer);
+		Result binary = this.measure("binary", binarySerializer, binaryDeserializer);
+
+		log.info("binary/json wire size: {}, serialize+deserialize time: {}",
+				String.format("%.2f", (double) binary.wireBytes() / json.wireBytes()),
+				String.format("%.2f", (double) binary.nanosPerRoundTrip() / Math.max(1, json.nanosPerRoundTrip())));
+	}
+
+	private Result measure(final String name, final Serializer<Object> serializer,
+			final Deserializer<Object> deserializer) {
+		RecordHeaders sampleHeaders = new RecordHeaders();
+		byte[] sample = serializer.serialize(TOPIC, sampleHeaders, this.event);
+		// header __TypeId__ cua JSON cung di tren mang cung voi moi record
+		int wireBytes = sample.length;
+		for (Header header : sampleHeaders) {
+			wireBytes += header.key().getBytes(StandardCharsets.UTF_8).length + header.value().length;
+		}
+		CreateUserProfileDTO decoded = (CreateUserProfileDTO) deserializer.deserialize(TOPIC, sampleHeaders, sample);
+		assertThat(decoded.getEventId()).isEqualTo(this.event.getEventId());
+
+		long sink = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			sink += this.roundTrip(serializer, deserializer);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink += this.roundTrip(serializer, deserializer);
+		}
+		long nanosPerRoundTrip = (System.nanoTime() - start) / ITERATIONS;
+
+		log.info("{}: {} bytes on the wire (value {} + headers), {} ns per serialize+deserialize (sink={})", name,
+				wireBytes, sample.length, nanosPerRoundTrip, sink);
+		return new Result(wireBytes, nanosPerRoundTrip);
+	}
+
+	private int roundTrip(final Serializer<Object> serializer, final Deserializer<Object> deserializer) {
+		RecordHeaders headers = new RecordHeaders();
+		byte[] bytes = serializer.serialize(TOPIC, headers, this.event);
+		return ((CreateUserProfileDTO) deserializer.deserialize(TOPIC, headers, bytes)).getUserId();
+	}
+
+	private record Result(int wireBytes, long nanosPerRoundTrip) {
+	}
+}
@@ -0,0 +1,203 @@
+package com.r2s.core.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.dto.UserCacheInvalidationEvent;
+import com.r2s.core.dto.UserStateEvent;
+
+class UserEventCodecTest {
+	private static final String TOPIC = "user.registered";
+	private static final Map<String, Object> PRODUCER_CONFIG = Map.of("spring.json.type.mapping",
+			"CreateUserProfileDTO:com.r2s.core.dto.CreateUserProfileDTO,"
+					+ "UserCacheInvalidationEvent:com.r2s.core.dto.UserCacheInvalidationEvent");
+	private static final Map<String, Object> CONSUMER_CONFIG = Map.of("spring.json.type.mapping",
+			PRODUCER_CONFIG.get("spring.json.type.mapping"), "spring.json.trusted.packages", "com.r2s.core.dto");
+
+	@Test
+	void encode_shouldRoundTripCreateUserProfile() {
+		CreateUserProfileDTO event = CreateUserProfileDTO.builder().eventId(UUID.randomUUID())
+				.eventVersion(CreateUserProfileDTO.CURRENT_VERSION).userId(42).username("nguyenvana")
+				.email("vana@example.com").fullName("Nguyễn Văn A").roleNames(List.of("USER", "ADMIN")).build();
+
+		byte[] bytes = UserEventCodec.encode(event);
+		CreateUserProfileDTO decoded = (CreateUserProfileDTO) UserEventCodec.decode(bytes);
+
+		assertEquals(UserEventCodec.MAGIC, bytes[0]);
+		assertEquals(UserEventCodec.SCHEMA_VERSION, bytes[1]);
+		assertEquals(event.getEventId(), decoded.getEventId());
+		assertEquals(1, decoded.getEventVersion());
+		assertEquals(42, decoded.getUserId());
+		assertEquals("nguyenvana", decoded.getUsername());
+		assertEquals("vana@example.com", decoded.getEmail());
+		assertEquals("Nguyễn Văn A", decoded.getFullName());
+		assertEquals(List.of("USER", "ADMIN"), decoded.getRoleNames());
+	}
+
+	@Test
+	void encode_shouldKeepNullsDistinctFromEmptyValues() {
+		CreateUserProfileDTO event = CreateUserProfileDTO.builder().userId(Integer.MIN_VALUE).username("")
+				.roleNames(List.of()).build();
+
+		CreateUserProfileDTO decoded = (CreateUserProfileDTO) UserEventCodec.decode(UserEventCodec.encode(event));
+
+		assertNull(decoded.getEventId());
+		assertEquals(Integer.MIN_VALUE, decoded.getUserId());
+		assertEquals("", decoded.getUsername());
+		assertNull(decoded.getEmail());
+		assertThat(decoded.getRoleNames()).isEmpty();
+	}
+
+	@Test
+	void encode_shouldRoundTripUserState() {
+		UserStateEvent state = UserStateEvent.builder().userId(9).username("vanc").email("vanc@example.com")
+				.fullName("Van C").deleted(true).roleNames(List.of("USER")).build();
+
+		UserStateEvent decoded = (UserStateEvent) UserEventCodec.decode(UserEventCodec.encode(state));
+
+		assertEquals(9, decoded.getUserId());
+		assertEquals("vanc", decoded.getUsername());
+		assertEquals("Van C", decoded.getFullName());
+		assertEquals(true, decoded.isDeleted());
+		assertEquals(List.of("USER"), decoded.getRoleNames());
+	}
+
+	@Test
+	void decode_shouldIgnoreFieldsAppendedByNewerSchemaVersion() {
+		byte[] current = UserEventCodec.encode(new UserCacheInvalidationEvent("vana", "UPDATED"));
+		byte[] newer = Arrays.copyOf(current, current.length + 3);
+		newer[1] = (byte) (UserEventCodec.SCHEMA_VERSION + 1);
+
+		UserCacheInvalidationEvent decoded = (UserCacheInvalidationEvent) UserEventCodec.decode(newer);
+
+		assertEquals("vana", decoded.getUsername());
+		assertEquals("UPDATED", decoded.getReason());
+	}
+
+	@Test
+	void decode_shouldKeepDefaultsForFieldsMissingFromOlderSchemaVersion() {
+		// payload cua version cu: ket thuc truoc roleNames (varint so phan tu + "USER" = 6 byte)
+		CreateUserProfileDTO event = CreateUserProfileDTO.builder().eventId(UUID.randomUUID()).userId(7)
+				.username("vanb").roleNames(List.of("USER")).build();
+		byte[] current = UserEventCodec.encode(event);
+		byte[] older = Arrays.copyOf(current, current.length - 6);
+
+		CreateUserProfileDTO decoded = (CreateUserProfileDTO) UserEventCodec.decode(older);
+
+		assertEquals(event.getEventId(), decoded.getEventId());
+		assertEquals("vanb", decoded.getUsername());
+		assertNull(decoded.getRoleNames());
+
+		// ket thuc truoc deleted + roleNames
+		byte[] state = UserEventCodec.encode(UserStateEvent.builder().userId(9).username("vanc").deleted(true)
+				.roleNames(List.of("USER")).build());
+		UserStateEvent olderState = (UserStateEvent) UserEventCodec.decode(Arrays.copyOf(state, state.length - 7));
+
+		assertEquals("vanc", olderState.getUsername());
+		assertEquals(false, olderState.isDeleted());
+		assertNull(olderState.getRoleNames());
+	}
+
+	@Test
+	void decode_shouldRejectUnknownTypeAndTruncatedPayload() {
+		byte[] bytes = UserEventCodec.encode(new UserCacheInvalidationEvent("vana", "UPDATED"));
+		byte[] unknownType = bytes.clone();
+		unknownType[2] = 99;
+
+		assertThrows(SerializationException.class, () -> UserEventCodec.decode(unknownType));
+		assertThrows(SerializationException.class,
+				() -> UserEventCodec.decode(Arrays.copyOf(bytes, bytes.length - 2)));
+	}
+
+	@Test
+	void serializer_shouldWriteJsonByDefaultAndBinaryWhenConfigured() {
+		UserCacheInvalidationEvent event = new UserCacheInvalidationEvent("vana", "DELETED");
+		UserEventSerializer json = new UserEventSerializer();
+		json.configure(PRODUCER_CONFIG, false);
+		UserEventSerializer binary = new UserEventSerializer();
+		binary.configure(withCodec("binary"), false);
+
+		byte[] jsonBytes = json.serialize(TOPIC, new RecordHeaders(), event);
+		byte[] binaryBytes = binary.serialize(TOPIC, new RecordHeaders(), event);
+
+		assertEquals('{', jsonBytes[0]);
+		assertEquals(UserEventCodec.MAGIC, binaryBytes[0]);
+		// kieu chua co binary encoding van di JSON
+		assertEquals('{', binary.serialize(TOPIC, new RecordHeaders(), Map.of("k", "v"))[0]);
+	}
+
+	@Test
+	void deserializer_shouldReadBothFormats() {
+		CreateUserProfileDTO event = CreateUserProfileDTO.builder().eventId(UUID.randomUUID()).userId(7)
+				.username("vanb").roleNames(List.of("USER")).build();
+		UserEventSerializer json = new UserEventSerializer();
+		json.configure(PRODUCER_CONFIG, false);
+		UserEventSerializer binary = new UserEventSerializer();
+		binary.configure(withCodec("binary"), false);
+		UserEventDeserializer deserializer = new UserEventDeserializer();
+		deserializer.configure(CONSUMER_CONFIG, false);
+
+		RecordHeaders jsonHeaders = new RecordHeaders();
+		byte[] jsonBytes = json.serialize(TOPIC, jsonHeaders, event);
+		RecordHeaders binaryHeaders = new RecordHeaders();
+		byte[] binaryBytes = binary.serialize(TOPIC, binaryHeaders, event);
+
+		CreateUserProfileDTO fromJson = (CreateUserProfileDTO) deserializer.deserialize(TOPIC, jsonHeaders, jsonBytes);
+		CreateUserProfileDTO fromBinary = (CreateUserProfileDTO) deserializer.deserialize(TOPIC, binaryHeaders,
+				binaryBytes);
+
+		assertEquals(event.getEventId(), fromJson.getEventId());
+		assertEquals(event.getEventId(), fromBinary.getEventId());
+		assertEquals("vanb", fromBinary.getUsername());
+		assertThat(binaryHeaders.toArray()).isEmpty();
+		assertNull(deserializer.deserialize(TOPIC, new RecordHeaders(), (byte[]) null));
+	}
+
+	@Test
+	void binaryCodec_shouldTakeLessThanHalfTheJsonBytesOnTheWire() {
+		CreateUserProfileDTO event = CreateUserProfileDTO.builder().eventId(UUID.randomUUID())
+				.eventVersion(CreateUserProfileDTO.CURRENT_VERSION).userId(123456).username("nguyenvana")
+				.email("nguyenvana@example.com").fullName("Nguyen Van A").roleNames(List.of("USER")).build();
+		UserEventSerializer json = new UserEventSerializer();
+		json.configure(PRODUCER_CONFIG, false);
+		UserEventSerializer binary = new UserEventSerializer();
+		binary.configure(withCodec("binary"), false);
+
+		RecordHeaders jsonHeaders = new RecordHeaders();
+		int jsonBytes = json.serialize(TOPIC, jsonHeaders, event).length + headerBytes(jsonHeaders);
+		RecordHeaders binaryHeaders = new RecordHeaders();
+		int binaryBytes = binary.serialize(TOPIC, binaryHeaders, event).length + headerBytes(binaryHeaders);
+
+		assertThat(binaryBytes).isLessThan(jsonBytes / 2);
+	}
+
+	// header __TypeId__ cua JSON cung di tren mang cung voi moi record
+	private static int headerBytes(final RecordHeaders headers) {
+		int bytes = 0;
+		for (Header header : headers) {
+			bytes += header.key().getBytes(StandardCharsets.UTF_8).length + header.value().length;
+		}
+		return bytes;
+	}
+
+	private static Map<String, Object> withCodec(final String codec) {
+		Map<String, Object> config = new HashMap<>(PRODUCER_CONFIG);
+		config.put(UserEventSerializer.CODEC_CONFIG, codec);
+		return config;
+	}
+}
@@ -1,25 +1,27 @@
 package com.r2s.core.security;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
-import com.r2s.core.entity.Role;
-import com.r2s.core.entity.User;
+import com.r2s.core.dto.UserCredentialsRow;
 import com.r2s.core.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,18 +30,18 @@ class CustomUserDetailsServiceTest {
 	@Mock
 	private UserRepository userRepository;
 
+	@Spy
+	private UserDetailsCache userDetailsCache = new UserDetailsCache(true, 100, Duration.ofMinutes(5), true, 100,
+			Duration.ofSeconds(10));
+
 	@InjectMocks
 	private CustomUserDetailsService userDetailsService;
 
 	@Test
 	void loadUserByUsername_shouldReturnUserDetailsWhenUserExists() {
 		// Setup
-		Role userRole = Role.builder().id(1).roleName("USER").build();
-		User user = User.builder().id(1).username("testuser").password("encodedPassword")
-				.fullname("Test User").email("test@example.com")
-				.roles(new ArrayList<>(List.of(userRole))).build();
-
-		when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+		when(userRepository.findCredentialsByUsername("testuser"))
+				.thenReturn(List.of(new UserCredentialsRow("testuser", "encodedPassword", false, "USER")));
 
 		// Execute
 		UserDetails userDetails = userDetailsService.loadUserByUsername("testuser");
@@ -49,28 +51,26 @@ class CustomUserDetailsServiceTest {
 		assertEquals("testuser", userDetails.getUsername());
 		assertEquals("encodedPassword", userDetails.getPassword());
 		assertEquals(1, userDetails.getAuthorities().size());
-		verify(userRepository).findByUsername("testuser");
+		assertTrue(userDetails.isEnabled());
+		verify(userRepository).findCredentialsByUsername("testuser");
 	}
 
 	@Test
 	void loadUserByUsername_shouldThrowExceptionWhenUserNotFound() {
 		// Setup
-		when(userRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
+		when(userRepository.findCredentialsByUsername("nonexistent")).thenReturn(List.of());
 
 		// Execute & Verify
 		assertThrows(RuntimeException.class, () -> userDetailsService.loadUserByUsername("nonexistent"));
-		verify(userRepository).findByUsername("nonexistent");
+		verify(userRepository).findCredentialsByUsername("nonexistent");
 	}
 
 	@Test
 	void loadUserByUsername_shouldHandleUserWithMultipleRoles() {
 		// Setup
-		Role userRole = Role.builder().id(1).roleName("USER").build();
-		Role adminRole = Role.builder().id(2).roleName("ADMIN").build();
-		User user = User.builder().id(1).username("adminuser").password("password")
-				.roles(new ArrayList<>(List.of(userRole, adminRole))).build();
-
-		when(userRepository.findByUsername("adminuser")).thenReturn(Optional.of(user));
+		when(userRepository.findCredentialsByUsername("adminuser"))
+				.thenReturn(List.of(new UserCredentialsRow("adminuser", "password", false, "USER"),
+						new UserCredentialsRow("adminuser", "password", false, "ADMIN")));
 
 		// Execute
 		UserDetails userDetails = userDetailsService.loadUserByUsername("adminuser");
@@ -79,7 +79,62 @@ class CustomUserDetailsServiceTest {
 		assertNotNull(userDetails);
 		assertEquals("adminuser", userDetails.getUsername());
 		assertEquals(2, userDetails.getAuthorities().size());
-		verify(userRepository).findByUsername("adminuser");
+		verify(userRepository).findCredentialsByUsername("adminuser");
 	}
-}
 
+	@Test
+	void loadUserByUsername_shouldServeRepeatedLookupsFromCache() {
+		// Setup
+		when(userRepository.findCredentialsByUsername("testuser"))
+				.thenReturn(List.of(new UserCredentialsRow("testuser", "encodedPassword", false, "USER")));
+
+		// Execute
+		userDetailsService.loadUserByUsername("testuser");
+		userDetailsService.loadUserByUsername("testuser");
+
+		// Verify
+		verify(userRepository, times(1)).findCredentialsByUsername("testuser");
+	}
+
+	@Test
+	void loadUserByUsername_shouldRememberUnknownUsername() {
+		// Setup
+		when(userRepository.findCredentialsByUsername("ghost")).thenReturn(List.of());
+
+		// Execute & Verify
+		assertThrows(RuntimeException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+		assertThrows(RuntimeException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+		verify(userRepository, times(1)).findCredentialsByUsername("ghost");
+	}
+
+	@Test
+	void loadUserByUsername_shouldDisableDeletedUserAndHandleUserWithoutRoles() {
+		// Setup
+		when(userRepository.findCredentialsByUsername("olduser"))
+				.thenReturn(List.of(new UserCredentialsRow("olduser", "password", true, null)));
+
+		// Execute
+		UserDetails userDetails = userDetailsService.loadUserByUsername("olduser");
+
+		// Verify
+		assertFalse(userDetails.isEnabled());
+		assertTrue(userDetails.getAuthorities().isEmpty());
+	}
+
+	@Test
+	void updatePassword_shouldPersistNewHashAndEvictCachedPrincipal() {
+		// Setup: principal dang nam trong cache voi hash cu
+		when(userRepository.findCredentialsByUsername("rehash"))
+				.thenReturn(List.of(new UserCredentialsRow("rehash", "oldHash", false, "USER")));
+		UserDetails cached = userDetailsService.loadUserByUsername("rehash");
+
+		// Execute
+		UserDetails updated = userDetailsService.updatePassword(cached, "{bcrypt}newHash");
+
+		// Verify
+		assertEquals("{bcrypt}newHash", updated.getPassword());
+		assertEquals(cached.getAuthorities(), updated.getAuthorities());
+		verify(userRepository).updatePasswordByUsername("rehash", "{bcrypt}newHash");
+		verify(userDetailsCache).evict("rehash");
+	}
+}
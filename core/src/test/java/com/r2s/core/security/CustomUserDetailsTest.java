@@ -2,8 +2,11 @@ package com.r2s.core.security;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -13,6 +16,7 @@ import org.springframework.security.core.GrantedAuthority;
 
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
+import com.r2s.core.util.VerifiedClaims;
 
 class CustomUserDetailsTest {
 
@@ -32,7 +36,7 @@ class CustomUserDetailsTest {
 		assertEquals("testuser", userDetails.getUsername());
 		assertEquals("password", userDetails.getPassword());
 		assertEquals(2, userDetails.getAuthorities().size());
-		assertEquals(2, userDetails.getRole().size());
+		assertEquals(2, userDetails.getRoleNames().size());
 
 		// Verify authorities are prefixed with ROLE_
 		Set<String> authorities = userDetails.getAuthorities().stream()
@@ -55,7 +59,7 @@ class CustomUserDetailsTest {
 		assertEquals("testuser", userDetails.getUsername());
 		assertEquals("password", userDetails.getPassword());
 		assertTrue(userDetails.getAuthorities().isEmpty());
-		assertTrue(userDetails.getRole().isEmpty());
+		assertTrue(userDetails.getRoleNames().isEmpty());
 	}
 
 	@Test
@@ -71,7 +75,7 @@ class CustomUserDetailsTest {
 		// Verify
 		assertEquals("testuser", userDetails.getUsername());
 		assertTrue(userDetails.getAuthorities().isEmpty());
-		assertTrue(userDetails.getRole().isEmpty());
+		assertTrue(userDetails.getRoleNames().isEmpty());
 	}
 
 	@Test
@@ -90,7 +94,7 @@ class CustomUserDetailsTest {
 	}
 
 	@Test
-	void getRole_shouldReturnRoles() {
+	void getRoleNames_shouldReturnRoleNames() {
 		// Setup
 		Role userRole = Role.builder().id(1).roleName("USER").build();
 		Role adminRole = Role.builder().id(2).roleName("ADMIN").build();
@@ -99,12 +103,48 @@ class CustomUserDetailsTest {
 		CustomUserDetails userDetails = new CustomUserDetails(user);
 
 		// Execute
-		Set<Role> roles = userDetails.getRole();
+		Set<String> roles = userDetails.getRoleNames();
 
 		// Verify
 		assertEquals(2, roles.size());
-		assertTrue(roles.stream().anyMatch(r -> r.getRoleName().equals("USER")));
-		assertTrue(roles.stream().anyMatch(r -> r.getRoleName().equals("ADMIN")));
+		assertTrue(roles.contains("USER"));
+		assertTrue(roles.contains("ADMIN"));
+	}
+
+	@Test
+	void fromClaims_shouldBuildPrincipalFromVerifiedClaims() {
+		// Setup
+		VerifiedClaims claims = new VerifiedClaims("testuser", List.of("USER", "ADMIN"),
+				List.of("ROLE_USER", "ROLE_ADMIN"), Instant.now().plusSeconds(60));
+
+		// Execute
+		CustomUserDetails userDetails = CustomUserDetails.fromClaims(claims);
+
+		// Verify
+		assertEquals("testuser", userDetails.getUsername());
+		assertEquals(2, userDetails.getAuthorities().size());
+		assertTrue(userDetails.getRoleNames().contains("ADMIN"));
 	}
-}
 
+	@Test
+	void principalsWithSameRoles_shouldShareInternedAuthorities() {
+		// Setup
+		Role userRole = Role.builder().id(1).roleName("USER").build();
+		Role adminRole = Role.builder().id(2).roleName("ADMIN").build();
+		User first = User.builder().id(1).username("first").password("password")
+				.roles(new ArrayList<>(List.of(userRole, adminRole))).build();
+		User second = User.builder().id(2).username("second").password("password")
+				.roles(new ArrayList<>(List.of(adminRole, userRole))).build();
+
+		// Execute
+		CustomUserDetails firstDetails = new CustomUserDetails(first);
+		CustomUserDetails secondDetails = new CustomUserDetails(second);
+		CustomUserDetails fromClaims = CustomUserDetails.fromClaims(new VerifiedClaims("third", List.of("USER", "ADMIN"),
+				List.of("ROLE_USER", "ROLE_ADMIN"), Instant.now().plusSeconds(60)));
+
+		// Verify
+		assertSame(firstDetails.getAuthorities(), secondDetails.getAuthorities());
+		assertSame(firstDetails.getAuthorities(), fromClaims.getAuthorities());
+		assertThrows(UnsupportedOperationException.class, () -> firstDetails.getRoleNames().add("MODERATOR"));
+	}
+}
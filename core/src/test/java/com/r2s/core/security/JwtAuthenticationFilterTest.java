@@ -1,6 +1,10 @@
 package com.r2s.core.security;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
@@ -8,8 +12,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,13 +25,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
-import com.r2s.core.util.JwtUtils;
+import com.r2s.core.util.VerifiedClaims;
+import com.r2s.core.util.VerifiedTokenCache;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -34,7 +43,7 @@ import jakarta.servlet.ServletException;
 class JwtAuthenticationFilterTest {
 
 	@Mock
-	private JwtUtils jwtUtils;
+	private VerifiedTokenCache tokenCache;
 
 	@Mock
 	private UserDetailsService userDetailsService;
@@ -66,18 +75,97 @@ class JwtAuthenticationFilterTest {
 				.roles(new ArrayList<>(List.of(userRole))).build();
 		UserDetails userDetails = new CustomUserDetails(user);
 
-		when(jwtUtils.validateToken(token)).thenReturn(true);
-		when(jwtUtils.extractUsername(token)).thenReturn("testuser");
+		VerifiedClaims claims = new VerifiedClaims("testuser", List.of("USER"), List.of("ROLE_USER"),
+				Instant.now().plusSeconds(60));
+		when(tokenCache.verify(token)).thenReturn(Optional.of(claims));
 		when(userDetailsService.loadUserByUsername("testuser")).thenReturn(userDetails);
 
 		// Execute
 		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
 		// Verify
-		verify(jwtUtils).validateToken(token);
-		verify(jwtUtils).extractUsername(token);
+		verify(tokenCache).verify(token);
 		verify(userDetailsService).loadUserByUsername("testuser");
 		verify(filterChain).doFilter(request, response);
+		assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+		assertSame(claims, request.getAttribute(VerifiedClaims.REQUEST_ATTRIBUTE));
+	}
+
+	@Test
+	void doFilterInternal_shouldBuildPrincipalFromClaimsWithoutDatabaseInClaimsMode()
+			throws ServletException, IOException {
+		// Setup
+		ReflectionTestUtils.setField(jwtAuthenticationFilter, "principalMode", PrincipalMode.CLAIMS);
+		String token = "valid-token";
+		request.addHeader("Authorization", "Bearer " + token);
+		request.setRequestURI("/users/me");
+
+		when(tokenCache.verify(token)).thenReturn(Optional.of(new VerifiedClaims("testuser", List.of("USER"),
+				List.of("ROLE_USER"), Instant.now().plusSeconds(60))));
+
+		// Execute
+		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+		// Verify
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		assertEquals("testuser", authentication.getName());
+		assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+		verify(filterChain).doFilter(request, response);
+	}
+
+	@Test
+	void doFilterInternal_shouldLoadFromDatabaseForDatabasePathsInClaimsMode() throws ServletException, IOException {
+		// Setup
+		ReflectionTestUtils.setField(jwtAuthenticationFilter, "principalMode", PrincipalMode.CLAIMS);
+		ReflectionTestUtils.setField(jwtAuthenticationFilter, "databasePaths", List.of("/admin/**"));
+		String token = "valid-token";
+		request.addHeader("Authorization", "Bearer " + token);
+		request.setRequestURI("/admin/users");
+
+		User user = User.builder().id(1).username("testuser").password("password")
+				.roles(new ArrayList<>(List.of(Role.builder().id(1).roleName("ADMIN").build()))).build();
+		when(tokenCache.verify(token)).thenReturn(Optional.of(new VerifiedClaims("testuser", List.of("USER"),
+				List.of("ROLE_USER"), Instant.now().plusSeconds(60))));
+		when(userDetailsService.loadUserByUsername("testuser")).thenReturn(new CustomUserDetails(user));
+
+		// Execute
+		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+		// Verify
+		verify(userDetailsService).loadUserByUsername("testuser");
+		assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+				.anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+	}
+
+	@Test
+	void doFilterInternal_shouldMatchMethodQualifiedDatabasePathsInClaimsMode() throws ServletException, IOException {
+		// Setup: chi DELETE /users/* load tu DB, GET /users/me van dung claims
+		ReflectionTestUtils.setField(jwtAuthenticationFilter, "principalMode", PrincipalMode.CLAIMS);
+		ReflectionTestUtils.setField(jwtAuthenticationFilter, "databasePaths", List.of("DELETE /users/*"));
+		String token = "valid-token";
+		request.addHeader("Authorization", "Bearer " + token);
+		request.setMethod("GET");
+		request.setRequestURI("/users/me");
+
+		User user = User.builder().id(1).username("testuser").password("password")
+				.roles(new ArrayList<>(List.of(Role.builder().id(1).roleName("USER").build()))).build();
+		when(tokenCache.verify(token)).thenReturn(Optional.of(new VerifiedClaims("testuser", List.of("ADMIN"),
+				List.of("ROLE_ADMIN"), Instant.now().plusSeconds(60))));
+		when(userDetailsService.loadUserByUsername("testuser")).thenReturn(new CustomUserDetails(user));
+
+		// Execute
+		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+
+		request.setMethod("DELETE");
+		request.setRequestURI("/users/bob");
+		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+		// Verify: token cu con ROLE_ADMIN nhung DB da ha xuong USER -> dung quyen trong DB
+		verify(userDetailsService).loadUserByUsername("testuser");
+		assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+				.noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
 	}
 
 	@Test
@@ -88,7 +176,7 @@ class JwtAuthenticationFilterTest {
 		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
 		// Verify
-		verify(jwtUtils, never()).validateToken(anyString());
+		verify(tokenCache, never()).verify(anyString());
 		verify(userDetailsService, never()).loadUserByUsername(anyString());
 		verify(filterChain).doFilter(request, response);
 		assertNull(SecurityContextHolder.getContext().getAuthentication());
@@ -100,14 +188,13 @@ class JwtAuthenticationFilterTest {
 		String token = "invalid-token";
 		request.addHeader("Authorization", "Bearer " + token);
 
-		when(jwtUtils.validateToken(token)).thenReturn(false);
+		when(tokenCache.verify(token)).thenReturn(Optional.empty());
 
 		// Execute
 		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
 		// Verify
-		verify(jwtUtils).validateToken(token);
-		verify(jwtUtils, never()).extractUsername(anyString());
+		verify(tokenCache).verify(token);
 		verify(userDetailsService, never()).loadUserByUsername(anyString());
 		verify(filterChain).doFilter(request, response);
 		assertNull(SecurityContextHolder.getContext().getAuthentication());
@@ -122,7 +209,7 @@ class JwtAuthenticationFilterTest {
 		jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
 		// Verify
-		verify(jwtUtils, never()).validateToken(anyString());
+		verify(tokenCache, never()).verify(anyString());
 		verify(userDetailsService, never()).loadUserByUsername(anyString());
 		verify(filterChain).doFilter(request, response);
 	}
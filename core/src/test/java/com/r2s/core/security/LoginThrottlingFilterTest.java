@@ -0,0 +1,192 @@
+package com.r2s.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+
+class LoginThrottlingFilterTest {
+
+	private final AtomicLong clock = new AtomicLong();
+	private LoginThrottlingFilter filter;
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		// username: 2 lan / phut, ip: 4 lan / phut
+		filter = new LoginThrottlingFilter("/auth/login", new LoginThrottlingFilter.Limit(2, Duration.ofMinutes(1)),
+				new LoginThrottlingFilter.Limit(4, Duration.ofMinutes(1)), Duration.ofMinutes(10), 1000, clock::get);
+		registry = new SimpleMeterRegistry();
+		filter.bindTo(registry);
+	}
+
+	@Test
+	void shouldRejectUsernameOverLimitBeforeReachingChain() throws Exception {
+		assertEquals(401, failedLogin("alice", "10.0.0.1").getStatus());
+		assertEquals(401, failedLogin("ALICE", "10.0.0.2").getStatus());
+
+		MockHttpServletResponse rejected = failedLogin("alice", "10.0.0.3");
+
+		assertEquals(429, rejected.getStatus());
+		assertEquals("30", rejected.getHeader("Retry-After"));
+		assertEquals(1.0, registry.get("auth.login.throttled").tag("key", "username").counter().count());
+	}
+
+	@Test
+	void shouldWriteErrorResponseWhenRejected() throws Exception {
+		failedLogin("erin", "10.0.0.1");
+		failedLogin("erin", "10.0.0.1");
+
+		MockHttpServletResponse rejected = failedLogin("erin", "10.0.0.1");
+
+		assertEquals(429, rejected.getStatus());
+		JsonNode body = new ObjectMapper().readTree(rejected.getContentAsString());
+		assertEquals("TOO_MANY_REQUESTS", body.get("code").asText());
+		assertEquals("auth", body.get("domain").asText());
+		assertNotNull(body.get("timestamp"));
+	}
+
+	@Test
+	void shouldNotChargeUsernameForSuccessfulLogins() throws Exception {
+		// ip limit 4/phut: doi ip de chi do gioi han username
+		for (int i = 0; i < 3; i++) {
+			assertEquals(200, login("dave", "10.0.1." + i, HttpServletResponse.SC_OK).getStatus());
+		}
+
+		assertEquals(401, failedLogin("dave", "10.0.2.1").getStatus());
+		assertEquals(401, failedLogin("dave", "10.0.2.2").getStatus());
+		assertEquals(429, failedLogin("dave", "10.0.2.3").getStatus());
+	}
+
+	@Test
+	void shouldRejectIpOverLimitAcrossUsernames() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			assertEquals(401, failedLogin("user" + i, "10.0.0.9").getStatus());
+		}
+
+		assertEquals(429, failedLogin("other", "10.0.0.9").getStatus());
+		assertEquals(401, failedLogin("other", "10.0.0.10").getStatus());
+		assertEquals(1.0, registry.get("auth.login.throttled").tag("key", "ip").counter().count());
+	}
+
+	@Test
+	void shouldRefillTokensOverTime() throws Exception {
+		failedLogin("bob", "10.0.0.1");
+		failedLogin("bob", "10.0.0.1");
+		assertEquals(429, failedLogin("bob", "10.0.0.1").getStatus());
+
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		assertEquals(401, failedLogin("bob", "10.0.0.1").getStatus());
+	}
+
+	@Test
+	void shouldReplayBodyToDownstream() throws Exception {
+		MockHttpServletRequest request = loginRequest("carol", "10.0.0.1");
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		assertNotNull(chain.getRequest());
+		assertEquals("{\"username\":\"carol\",\"password\":\"Secret#123\"}",
+				StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void shouldReplayBodyToReadListener() throws Exception {
+		MockHttpServletRequest request = loginRequest("frank", "10.0.0.1");
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		AtomicBoolean allRead = new AtomicBoolean();
+
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+			ServletInputStream in = req.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					int b;
+					while (in.isReady() && (b = in.read()) >= 0) {
+						read.write(b);
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allRead.set(true);
+				}
+
+				@Override
+				public void onError(final Throwable t) {
+				}
+			});
+		});
+
+		assertTrue(allRead.get());
+		assertEquals("{\"username\":\"frank\",\"password\":\"Secret#123\"}", read.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void shouldIgnoreOtherEndpoints() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/register");
+			request.setServletPath("/auth/register");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, new MockFilterChain());
+			assertEquals(200, response.getStatus());
+		}
+		assertEquals(0, filter.trackedKeys());
+	}
+
+	@Test
+	void tokenBucket_shouldReportWaitTimeWhenEmpty() {
+		LoginThrottlingFilter.TokenBucket bucket = new LoginThrottlingFilter.TokenBucket(
+				new LoginThrottlingFilter.Limit(1, Duration.ofSeconds(10)));
+
+		assertEquals(0, bucket.tryAcquire(0));
+		assertEquals(Duration.ofSeconds(10).toNanos(), bucket.tryAcquire(0));
+		assertEquals(0, bucket.tryAcquire(Duration.ofSeconds(10).toNanos()));
+	}
+
+	private MockHttpServletResponse failedLogin(final String username, final String ip) throws Exception {
+		return login(username, ip, HttpServletResponse.SC_UNAUTHORIZED);
+	}
+
+	// chain gia lap controller: tra ve status cua lan dang nhap
+	private MockHttpServletResponse login(final String username, final String ip, final int status)
+			throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(loginRequest(username, ip), response,
+				(req, res) -> ((HttpServletResponse) res).setStatus(status));
+		return response;
+	}
+
+	private static MockHttpServletRequest loginRequest(final String username, final String ip) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+		request.setServletPath("/auth/login");
+		request.setRemoteAddr(ip);
+		request.setContentType("application/json");
+		request.setContent(("{\"username\":\"" + username + "\",\"password\":\"Secret#123\"}")
+				.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+}
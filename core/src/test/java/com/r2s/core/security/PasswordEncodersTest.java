@@ -0,0 +1,52 @@
+package com.r2s.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordEncodersTest {
+
+	@Test
+	void delegating_shouldPrefixNewHashesAndMatchLegacyHashes() {
+		PasswordEncoder encoder = PasswordEncoders.delegating(4);
+		String legacy = new BCryptPasswordEncoder(4).encode("Secret#123");
+
+		String encoded = encoder.encode("Secret#123");
+
+		assertTrue(encoded.startsWith("{bcrypt}$2a$04$"));
+		assertTrue(encoder.matches("Secret#123", encoded));
+		assertTrue(encoder.matches("Secret#123", legacy));
+		assertFalse(encoder.matches("wrong", legacy));
+	}
+
+	@Test
+	void delegating_shouldRequestUpgradeForLegacyOrWeakerHashes() {
+		PasswordEncoder encoder = PasswordEncoders.delegating(5);
+
+		assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("Secret#123")));
+		assertTrue(encoder.upgradeEncoding(PasswordEncoders.delegating(4).encode("Secret#123")));
+		assertFalse(encoder.upgradeEncoding(encoder.encode("Secret#123")));
+	}
+
+	@Test
+	void calibrate_shouldPickHighestStrengthWithinTarget() {
+		// moi cost tang gap doi: cost 10 = 50ms, 11 = 100ms, 12 = 200ms, 13 = 400ms
+		int strength = PasswordEncoders.calibrateBCryptStrength(Duration.ofMillis(250), 10, 14,
+				cost -> Duration.ofMillis(50L << (cost - 10)).toNanos());
+
+		assertEquals(12, strength);
+	}
+
+	@Test
+	void calibrate_shouldNeverGoBelowMinimumOrAboveMaximum() {
+		assertEquals(10, PasswordEncoders.calibrateBCryptStrength(Duration.ofMillis(1), 10, 14,
+				cost -> Duration.ofSeconds(1).toNanos()));
+		assertEquals(14, PasswordEncoders.calibrateBCryptStrength(Duration.ofSeconds(1), 10, 14, cost -> 0L));
+	}
+}
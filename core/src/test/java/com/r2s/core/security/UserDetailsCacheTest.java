@@ -0,0 +1,182 @@
+package com.r2s.core.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.r2s.core.entity.Role;
+import com.r2s.core.entity.User;
+
+class UserDetailsCacheTest {
+
+	@Test
+	void get_shouldLoadOnceAndServeFromCache() {
+		UserDetailsCache cache = cache(true, false);
+		AtomicInteger loads = new AtomicInteger();
+
+		CustomUserDetails first = cache.get("testuser", counting(loads)).orElseThrow();
+		CustomUserDetails second = cache.get("testuser", counting(loads)).orElseThrow();
+
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.stats().hitCount());
+	}
+
+	@Test
+	void evict_shouldForceReload() {
+		UserDetailsCache cache = cache(true, false);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("testuser", counting(loads));
+		cache.evict("testuser");
+		cache.get("testuser", counting(loads));
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void get_shouldAlwaysLoadWhenDisabled() {
+		UserDetailsCache cache = cache(false, false);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("testuser", counting(loads));
+		cache.get("testuser", counting(loads));
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void get_shouldRememberUnknownUsernameUntilEvicted() {
+		UserDetailsCache cache = cache(false, true);
+		AtomicInteger loads = new AtomicInteger();
+		Function<String, Optional<CustomUserDetails>> missing = username -> {
+			loads.incrementAndGet();
+			return Optional.empty();
+		};
+
+		assertTrue(cache.get("ghost", missing).isEmpty());
+		assertTrue(cache.get("ghost", missing).isEmpty());
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.negativeHitCount());
+
+		// dang ky user moi -> evict -> load lai tu DB
+		cache.evict("ghost");
+		assertTrue(cache.get("ghost", counting(loads)).isPresent());
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void get_shouldCoalesceConcurrentLoadsOfSameUsername() throws Exception {
+		UserDetailsCache cache = cache(false, false);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		Function<String, Optional<CustomUserDetails>> slowLoader = username -> {
+			loads.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Optional.of(userDetails(username));
+		};
+
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Optional<CustomUserDetails>>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> cache.get("testuser", slowLoader)));
+			}
+			// cho tat ca thread vao flight truoc khi tra ket qua
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (cache.coalescedLoadCount() < threads - 1 && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+
+			for (Future<Optional<CustomUserDetails>> result : results) {
+				assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+		assertEquals(threads - 1, cache.coalescedLoadCount());
+	}
+
+	@Test
+	void get_shouldReleaseWaitersAndRetryWhenLoaderThrowsError() throws Exception {
+		UserDetailsCache cache = cache(true, false);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		Function<String, Optional<CustomUserDetails>> failingLoader = username -> {
+			loads.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new StackOverflowError("loader");
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Optional<CustomUserDetails>> leader = executor.submit(() -> cache.get("testuser", failingLoader));
+			Future<Optional<CustomUserDetails>> waiter = executor.submit(() -> cache.get("testuser", failingLoader));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (cache.coalescedLoadCount() < 1 && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+
+			// ca thread dang cho cung nhan Error thay vi treo
+			ExecutionException leaderError = assertThrows(ExecutionException.class,
+					() -> leader.get(5, TimeUnit.SECONDS));
+			ExecutionException waiterError = assertThrows(ExecutionException.class,
+					() -> waiter.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(StackOverflowError.class, leaderError.getCause());
+			assertInstanceOf(StackOverflowError.class, waiterError.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// flight da duoc xoa: lan sau load lai
+		assertTrue(cache.get("testuser", counting(loads)).isPresent());
+		assertEquals(2, loads.get());
+	}
+
+	private static UserDetailsCache cache(final boolean enabled, final boolean negativeEnabled) {
+		return new UserDetailsCache(enabled, 100, Duration.ofMinutes(5), negativeEnabled, 100, Duration.ofSeconds(10));
+	}
+
+	private static Function<String, Optional<CustomUserDetails>> counting(final AtomicInteger loads) {
+		return username -> {
+			loads.incrementAndGet();
+			return Optional.of(userDetails(username));
+		};
+	}
+
+	private static CustomUserDetails userDetails(final String username) {
+		Role userRole = Role.builder().id(1).roleName("USER").build();
+		return new CustomUserDetails(
+				User.builder().id(1).username(username).password("password").roles(List.of(userRole)).build());
+	}
+}
@@ -0,0 +1,76 @@
+package com.r2s.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.r2s.core.entity.Role;
+import com.r2s.core.entity.User;
+import com.r2s.core.security.CustomUserDetails;
+
+class JwtVerifierTest {
+
+	private static final String TEST_SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+	private static final String OTHER_SECRET = "5A7134743777217A25432A462D4A614E645267556B58703273357638792F423F";
+
+	private JwtVerifier jwtVerifier;
+	private CustomUserDetails userDetails;
+
+	@BeforeEach
+	void setUp() {
+		jwtVerifier = new JwtVerifier(TEST_SECRET);
+		Role userRole = Role.builder().id(1).roleName("USER").build();
+		Role adminRole = Role.builder().id(2).roleName("ADMIN").build();
+		User user = User.builder().id(1).username("testuser").password("password")
+				.roles(List.of(userRole, adminRole)).build();
+		userDetails = new CustomUserDetails(user);
+	}
+
+	@Test
+	void verify_shouldReturnClaimsForValidToken() {
+		String token = jwtUtils(TEST_SECRET, 3600L).generateToken(userDetails);
+
+		Optional<VerifiedClaims> claims = jwtVerifier.verify(token);
+
+		assertTrue(claims.isPresent());
+		assertEquals("testuser", claims.get().subject());
+		assertTrue(claims.get().roles().containsAll(List.of("USER", "ADMIN")));
+		assertTrue(claims.get().authorities().containsAll(List.of("ROLE_USER", "ROLE_ADMIN")));
+		assertTrue(claims.get().expiresAt().isAfter(Instant.now()));
+	}
+
+	@Test
+	void verify_shouldRejectExpiredToken() {
+		String token = jwtUtils(TEST_SECRET, -3600L).generateToken(userDetails);
+
+		assertTrue(jwtVerifier.verify(token).isEmpty());
+	}
+
+	@Test
+	void verify_shouldRejectTokenSignedWithAnotherKey() {
+		String token = jwtUtils(OTHER_SECRET, 3600L).generateToken(userDetails);
+
+		assertTrue(jwtVerifier.verify(token).isEmpty());
+	}
+
+	@Test
+	void verify_shouldRejectMalformedOrEmptyToken() {
+		assertTrue(jwtVerifier.verify("invalid.token.here").isEmpty());
+		assertTrue(jwtVerifier.verify("").isEmpty());
+		assertTrue(jwtVerifier.verify(null).isEmpty());
+	}
+
+	private static JwtUtils jwtUtils(final String secret, final long duration) {
+		JwtUtils jwtUtils = new JwtUtils();
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+		ReflectionTestUtils.setField(jwtUtils, "jwtDuration", duration);
+		return jwtUtils;
+	}
+}
@@ -0,0 +1,88 @@
+package com.r2s.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+	@Mock
+	private JwtVerifier jwtVerifier;
+
+	@Test
+	void verify_shouldServeRepeatedTokenFromCache() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtVerifier, true, 100, Duration.ofMinutes(10));
+		VerifiedClaims claims = claims(Instant.now().plusSeconds(60));
+		when(jwtVerifier.verify("token")).thenReturn(Optional.of(claims));
+
+		assertSame(claims, cache.verify("token").orElseThrow());
+		assertSame(claims, cache.verify("token").orElseThrow());
+
+		verify(jwtVerifier, times(1)).verify("token");
+		assertEquals(1, cache.stats().hitCount());
+		assertEquals(1, cache.stats().missCount());
+	}
+
+	@Test
+	void verify_shouldNotCacheRejectedTokens() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtVerifier, true, 100, Duration.ofMinutes(10));
+		when(jwtVerifier.verify("bad")).thenReturn(Optional.empty());
+
+		assertTrue(cache.verify("bad").isEmpty());
+		assertTrue(cache.verify("bad").isEmpty());
+
+		verify(jwtVerifier, times(2)).verify("bad");
+	}
+
+	@Test
+	void verify_shouldNotOutliveTokenExpiry() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtVerifier, true, 100, Duration.ofMinutes(10));
+		when(jwtVerifier.verify("token")).thenReturn(Optional.of(claims(Instant.now().plusMillis(50))))
+				.thenReturn(Optional.empty());
+
+		assertTrue(cache.verify("token").isPresent());
+		sleep(100);
+
+		assertTrue(cache.verify("token").isEmpty());
+		verify(jwtVerifier, times(2)).verify("token");
+	}
+
+	@Test
+	void verify_shouldDelegateEveryCallWhenDisabled() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtVerifier, false, 100, Duration.ofMinutes(10));
+		when(jwtVerifier.verify("token")).thenReturn(Optional.of(claims(Instant.now().plusSeconds(60))));
+
+		cache.verify("token");
+		cache.verify("token");
+
+		assertFalse(cache.isEnabled());
+		verify(jwtVerifier, times(2)).verify("token");
+	}
+
+	private static VerifiedClaims claims(final Instant expiresAt) {
+		return new VerifiedClaims("testuser", List.of("USER"), List.of("ROLE_USER"), expiresAt);
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
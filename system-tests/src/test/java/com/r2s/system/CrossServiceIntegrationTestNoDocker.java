@@ -6,15 +6,20 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 
+import com.r2s.core.dto.UserCredentialsRow;
+import com.r2s.core.dto.UserSummaryRow;
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
 import com.r2s.core.repository.RoleRepository;
@@ -140,4 +145,68 @@ class CrossServiceIntegrationTestNoDocker {
 
 		log.info("Role-based authentication verified for user with multiple roles");
 	}
+
+	@Test
+	@DisplayName("Should load authentication principal from the credentials projection")
+	void testCredentialsProjection() {
+		// Setup: user with two roles
+		Role userRole = roleRepository
+				.save(Role.builder().roleName("USER").description("Standard user").isActive(true).build());
+		Role adminRole = roleRepository
+				.save(Role.builder().roleName("ADMIN").description("Administrator").isActive(true).build());
+		userRepository.save(User.builder().username("projection").password(passwordEncoder.encode("Test@123"))
+				.email("projection@example.com").fullname("Projection User").deleted(false)
+				.roles(new ArrayList<>(List.of(userRole, adminRole))).build());
+
+		// Test: one query, one row per role, no entity hydration
+		List<UserCredentialsRow> rows = userRepository.findCredentialsByUsername("projection");
+		CustomUserDetails userDetails = CustomUserDetails.fromRows(rows);
+
+		// Verify
+		assertThat(rows).hasSize(2);
+		assertThat(userDetails.getUsername()).isEqualTo("projection");
+		assertTrue(passwordEncoder.matches("Test@123", userDetails.getPassword()));
+		assertThat(userDetails.getAuthorities().stream().map(auth -> auth.getAuthority()).toList())
+				.containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+		assertThat(userRepository.findCredentialsByUsername("missing")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Should page through users by keyset with roles fetched per page")
+	void testKeysetPagination() {
+		// Setup: 5 user, moi user 1 role
+		Role userRole = roleRepository
+				.save(Role.builder().roleName("USER").description("Standard user").isActive(true).build());
+		for (String username : List.of("erin", "alice", "dave", "bob", "carol")) {
+			userRepository.save(User.builder().username(username).password("N/A").email(username + "@example.com")
+					.fullname(username).deleted(false).roles(new ArrayList<>(List.of(userRole))).build());
+		}
+
+		// Test: trang dau theo username, trang sau bat dau sau username cuoi
+		List<UserSummaryRow> first = userRepository.findSummaries(Sort.by("username"), Limit.of(2));
+		List<UserSummaryRow> second = userRepository.findSummariesAfterUsername(first.get(1).username(), Limit.of(2));
+		List<UserSummaryRow> lastById = userRepository.findSummariesBeforeId(first.get(0).id() + 1, Limit.of(10));
+		Map<Integer, List<String>> roles = userRepository
+				.findRoleNamesGroupedByUserId(second.stream().map(UserSummaryRow::id).toList());
+
+		// Verify
+		assertThat(first).extracting(UserSummaryRow::username).containsExactly("alice", "bob");
+		assertThat(second).extracting(UserSummaryRow::username).containsExactly("carol", "dave");
+		assertThat(lastById).extracting(UserSummaryRow::username).startsWith("alice");
+		assertThat(roles).containsOnlyKeys(second.get(0).id(), second.get(1).id());
+		assertThat(roles.get(second.get(0).id())).containsExactly("USER");
+	}
+
+	@Test
+	@DisplayName("Should detect taken username and email ignoring case")
+	void testCaseInsensitiveDuplicateChecks() {
+		userRepository.save(User.builder().username("VanA").password("N/A").email("VanA@Example.com").deleted(false)
+				.build());
+
+		assertThat(userRepository.existsByUsernameIgnoreCase("vana")).isTrue();
+		assertThat(userRepository.existsByUsernameIgnoreCase("vanb")).isFalse();
+		// email cua chinh minh khong tinh la trung
+		assertThat(userRepository.existsByEmailIgnoreCaseAndUsernameNot("vana@example.com", "other")).isTrue();
+		assertThat(userRepository.existsByEmailIgnoreCaseAndUsernameNot("vana@example.com", "VanA")).isFalse();
+	}
 }
@@ -0,0 +1,152 @@
+package com.r2s.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.r2s.core.dto.UserSummaryRow;
+import com.r2s.core.entity.Role;
+import com.r2s.core.entity.User;
+import com.r2s.core.repository.RoleRepository;
+import com.r2s.core.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the JDBC statements Hibernate prepares for the user listing read
+ * paths and for bulk inserts, so an N+1 on users/roles or a per-row insert
+ * round trip fails the build instead of showing up as latency in production.
+ */
+@SpringBootTest(classes = TestConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test-no-docker")
+@Slf4j
+@DisplayName("User/role reads and writes issue a bounded number of statements")
+class UserRoleQueryCountTest {
+	private static final int USERS = 1000;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		this.jdbcTemplate.update("delete from user_role");
+		this.jdbcTemplate.update("delete from users");
+		this.jdbcTemplate.update("delete from roles");
+		Role user = this.roleRepository.save(Role.builder().roleName("USER").isActive(true).build());
+		Role admin = this.roleRepository.save(Role.builder().roleName("ADMIN").isActive(true).build());
+		List<User> users = new ArrayList<>(USERS);
+		for (int i = 0; i < USERS; i++) {
+			List<Role> roles = i % 10 == 0 ? List.of(user, admin) : List.of(user);
+			users.add(User.builder().username(String.format("user%04d", i)).password("N/A")
+					.email("user" + i + "@example.com").fullname("User " + i).roles(new ArrayList<>(roles)).build());
+		}
+		this.userRepository.saveAll(users);
+
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	@DisplayName("saveAll of 1,000 users: pooled ids and JDBC batches, not a round trip per row")
+	void saveAll_shouldBatchInsertsWithPooledIds() {
+		List<User> users = new ArrayList<>(USERS);
+		Role role = this.roleRepository.findByRoleName("USER").orElseThrow();
+		for (int i = 0; i < USERS; i++) {
+			users.add(User.builder().username("batch" + i).password("N/A").roles(new ArrayList<>(List.of(role)))
+					.build());
+		}
+
+		long statements = this.count(() -> this.userRepository.saveAll(users));
+
+		// 1000 user + 1000 dong user_role theo batch 100, nextval 1 lan / 50 id -> vai chuc statement thay vi 2000+
+		log.info("saveAll: {} users -> {} statements prepared", USERS, statements);
+		assertThat(this.statistics.getEntityInsertCount()).isEqualTo(USERS);
+		assertThat(statements).isLessThan(100);
+		assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+	}
+
+	@Test
+	@DisplayName("Summary page + roles: 2 statements for 10 and for 1,000 users")
+	void summaryPage_shouldUseTwoStatementsRegardlessOfPageSize() {
+		long small = this.count(() -> this.summaryPage(10));
+		long large = this.count(() -> this.summaryPage(USERS));
+
+		log.info("summary page: 10 users -> {} statements, {} users -> {} statements", small, USERS, large);
+		assertThat(small).isEqualTo(2);
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	@DisplayName("Entity page: roles are batch fetched, not one query per user")
+	void entityPage_shouldBatchFetchRoles() {
+		long statements = this.count(() -> this.transactionTemplate.execute(status -> {
+			List<User> users = this.userRepository.findAll(Sort.by("id"));
+			return users.stream().mapToInt(u -> u.getRoles().size()).sum();
+		}));
+
+		// 1 query user + 1 query role cho moi lo 100 user (@BatchSize), thay vi 1 + 1000
+		log.info("entity page: {} users -> {} statements", USERS, statements);
+		assertThat(statements).isLessThanOrEqualTo(1 + USERS / 100);
+	}
+
+	@Test
+	@DisplayName("findByUsername loads user and roles in one statement")
+	void findByUsername_shouldLoadRolesWithEntityGraph() {
+		User[] found = new User[1];
+		long statements = this.count(() -> found[0] = this.userRepository.findByUsername("user0010").orElseThrow());
+
+		// roles da duoc load, doc ngoai transaction khong loi
+		assertThat(statements).isEqualTo(1);
+		assertThat(Hibernate.isInitialized(found[0].getRoles())).isTrue();
+		assertThat(found[0].getRoles()).extracting(Role::getRoleName).containsExactlyInAnyOrder("USER", "ADMIN");
+	}
+
+	private int summaryPage(int size) {
+		List<UserSummaryRow> page = this.userRepository.findSummaries(Sort.by("id"), Limit.of(size));
+		Map<Integer, List<String>> roles = this.userRepository
+				.findRoleNamesGroupedByUserId(page.stream().map(UserSummaryRow::id).toList());
+		assertThat(page).hasSize(size);
+		assertThat(roles).hasSize(size);
+		return page.size();
+	}
+
+	private long count(Supplier<?> action) {
+		this.statistics.clear();
+		action.get();
+		return this.statistics.getPrepareStatementCount();
+	}
+}
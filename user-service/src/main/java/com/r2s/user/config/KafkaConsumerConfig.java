@@ -0,0 +1,59 @@
+package com.r2s.user.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import com.r2s.core.constant.KafkaTopics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+	// cung cau hinh spring.kafka.* voi factory mac dinh, nhung listener nhan ca batch record cua 1 lan poll
+	@Bean
+	ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+			ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+			KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry) {
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		configurer.configure(factory, consumerFactory);
+		factory.setBatchListener(true);
+		factory.setCommonErrorHandler(this.forwardToRetryTopic(kafkaTemplate, meterRegistry));
+		return factory;
+	}
+
+	// user.registered tung record (user.consumer.batch-enabled=false)
+	@Bean
+	ConcurrentKafkaListenerContainerFactory<Object, Object> userRegisteredKafkaListenerContainerFactory(
+			ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+			KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry) {
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		configurer.configure(factory, consumerFactory);
+		factory.setCommonErrorHandler(this.forwardToRetryTopic(kafkaTemplate, meterRegistry));
+		return factory;
+	}
+
+	// record loi khong retry tai cho (block ca partition) ma day sang user.registered.retry ngay,
+	// UserRegisteredRetryListener retry voi backoff tang dan roi dua vao DLT
+	private CommonErrorHandler forwardToRetryTopic(KafkaTemplate<String, Object> kafkaTemplate,
+			MeterRegistry meterRegistry) {
+		Counter forwarded = Counter.builder("user.events.forwarded-to-retry")
+				.description("user.registered records handed to the retry topic").register(meterRegistry);
+		DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+				(record, ex) -> new TopicPartition(KafkaTopics.USER_REGISTERED_RETRY, -1));
+		return new DefaultErrorHandler((record, ex) -> {
+			forwarded.increment();
+			recoverer.accept(record, ex);
+		}, new FixedBackOff(0L, 0L));
+	}
+}
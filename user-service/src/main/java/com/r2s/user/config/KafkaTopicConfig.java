@@ -0,0 +1,24 @@
+package com.r2s.user.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import com.r2s.core.constant.KafkaTopics;
+
+@Configuration
+public class KafkaTopicConfig {
+
+	// compact: giu record moi nhat cua moi user id; tombstone duoc giu delete.retention.ms
+	// (phai lau hon thoi gian mot replica co the offline hoac bootstrap, neu khong replica do khong thay user bi xoa)
+	@Bean
+	NewTopic userStateTopic(@Value("${kafka.topics.user-state.partitions:6}") int partitions,
+			@Value("${kafka.topics.user-state.replicas:1}") short replicas,
+			@Value("${kafka.topics.user-state.tombstone-retention-ms:86400000}") long tombstoneRetentionMs) {
+		return TopicBuilder.name(KafkaTopics.USER_STATE).partitions(partitions).replicas(replicas).compact()
+				.config(TopicConfig.DELETE_RETENTION_MS_CONFIG, String.valueOf(tombstoneRetentionMs)).build();
+	}
+}
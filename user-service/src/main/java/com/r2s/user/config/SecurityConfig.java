@@ -7,7 +7,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -16,7 +15,9 @@ import com.r2s.core.security.CustomAccessDeniedHandler;
 import com.r2s.core.security.CustomAuthenticationEntryPoint;
 import com.r2s.core.security.CustomUserDetailsService;
 import com.r2s.core.security.JwtAuthenticationFilter;
+import com.r2s.core.security.PasswordEncoders;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -34,7 +35,8 @@ public class SecurityConfig {
 
 	@Bean
 	PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+		// cung dinh dang {bcrypt} voi auth-service; user-service khong dang nhap nen khong can calibrate
+		return PasswordEncoders.delegating(PasswordEncoders.DEFAULT_BCRYPT_STRENGTH);
 	}
 
 	@Bean
@@ -43,6 +45,8 @@ public class SecurityConfig {
 
 		http.authorizeHttpRequests(auths -> auths
 				.requestMatchers(WHITE_LIST).permitAll()
+				// async dispatch sau khi StreamingResponseBody ghi xong: request da duoc phan quyen o lan dispatch dau
+				.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 				.requestMatchers("/users").hasRole("ADMIN")
 				.requestMatchers("/users/**").hasAnyRole("ADMIN", "USER")
 				.anyRequest().authenticated())
@@ -0,0 +1,29 @@
+package com.r2s.user.controller;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.r2s.core.response.SuccessResponse;
+import com.r2s.user.kafka.DeadLetterReplayService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping(path = "/users/admin/dead-letters")
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterController {
+	private final DeadLetterReplayService replayService;
+
+	// dua toi da max record tu DLT ve retry topic (sau khi da sua nguyen nhan loi)
+	@PostMapping("/replay")
+	@PreAuthorize("hasRole('ADMIN')")
+	public SuccessResponse<Integer> replay(@RequestParam(name = "max", defaultValue = "100") int max) {
+		log.info("POST /users/admin/dead-letters/replay requested, max={}", max);
+		return SuccessResponse.of(replayService.replay(max));
+	}
+}
@@ -1,7 +1,9 @@
 package com.r2s.user.controller;
 
-import java.util.List;
-
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -9,11 +11,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.r2s.core.entity.User;
+import com.r2s.core.response.ErrorCode;
 import com.r2s.core.response.SuccessResponse;
+import com.r2s.user.dto.UserETag;
+import com.r2s.user.dto.UserPageResponse;
 import com.r2s.user.dto.UserResponse;
 import com.r2s.user.dto.UserResponse.UpdateUserRequest;
 import com.r2s.user.service.UserService;
@@ -27,25 +33,48 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @Slf4j
 public class UserController {
+	// chi cache rieng cua client, luon hoi lai server bang If-None-Match truoc khi dung
+	private static final CacheControl PROFILE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
 	private final UserService userService;
 
+	// GET /users?size=50&sort=id|-id|username|-username&cursor=<nextCursor cua trang truoc>
 	@GetMapping
 	@PreAuthorize("hasRole('ADMIN')")
-	public SuccessResponse<List<User>> getAllUsers() {
-		return SuccessResponse.of(userService.getAllUsers());
+	public SuccessResponse<UserPageResponse> getUsers(@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", required = false) Integer size,
+			@RequestParam(name = "sort", defaultValue = "id") String sort) {
+		UserPageResponse page = userService.getUsers(cursor, size, sort);
+		return SuccessResponse.<UserPageResponse>builder().data(page).code(ErrorCode.OK).size(page.getItems().size())
+				.build();
 	}
 
+	// client gui lai ETag (If-None-Match) -> 304 khong body; version doc tu cache, khong load profile
 	@GetMapping("/me")
-	public SuccessResponse<UserResponse> getMyProfile(@Valid Authentication authentication) {
+	public ResponseEntity<SuccessResponse<UserResponse>> getMyProfile(@Valid Authentication authentication,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		String username = authentication.getName();
-		return SuccessResponse.of(userService.getUserByUsername(username));
+		if (ifNoneMatch != null) {
+			Long version = userService.getUserVersion(username);
+			if (UserETag.matches(ifNoneMatch, version)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(UserETag.of(version))
+						.cacheControl(PROFILE_CACHE_CONTROL).build();
+			}
+		}
+		UserResponse user = userService.getUserByUsername(username);
+		return ResponseEntity.ok().eTag(UserETag.of(user.getVersion())).cacheControl(PROFILE_CACHE_CONTROL)
+				.body(SuccessResponse.of(user));
 	}
 
+	// If-Match: "<version>" -> chi ghi khi profile chua bi sua tu lan doc truoc (412 neu da bi sua);
+	// thieu If-Match -> 428, tranh ghi de mat cap nhat cua request khac
 	@PutMapping("/me")
-	public SuccessResponse<UserResponse> updateMyProfile(@RequestBody UpdateUserRequest request,
+	public ResponseEntity<SuccessResponse<UserResponse>> updateMyProfile(@RequestBody UpdateUserRequest request,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			Authentication authentication) {
 		String username = authentication.getName();
-		return SuccessResponse.of(userService.updateUser(username, request));
+		UserResponse updated = userService.updateUser(username, request, UserETag.parseIfMatch(ifMatch));
+		return ResponseEntity.ok().eTag(UserETag.of(updated.getVersion())).body(SuccessResponse.of(updated));
 	}
 
 	@DeleteMapping("/{username}")
@@ -0,0 +1,49 @@
+package com.r2s.user.controller;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.r2s.user.dto.UserExportFormat;
+import com.r2s.user.service.UserExportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping(path = "/users/admin/export")
+@RequiredArgsConstructor
+@Slf4j
+public class UserExportController {
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	private final UserExportService userExportService;
+
+	// dump toan bo user cho audit; body ghi dan tren thread async, khong giu ca bang trong heap
+	@GetMapping
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<StreamingResponseBody> export(
+			@RequestParam(name = "format", defaultValue = "ndjson") String format,
+			@RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+		log.info("GET /users/admin/export requested, format={}, gzip={}", format, gzip);
+		// parse truoc khi stream: format sai van tra 400 binh thuong
+		UserExportFormat exportFormat = UserExportFormat.parse(format);
+		String filename = "users-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + exportFormat.getValue()
+				+ (gzip ? ".gz" : "");
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_TYPE,
+						gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8")
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename(filename).build().toString())
+				.body(out -> userExportService.export(exportFormat, gzip, out));
+	}
+}
@@ -0,0 +1,28 @@
+package com.r2s.user.controller;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.r2s.core.response.SuccessResponse;
+import com.r2s.user.kafka.UserStateProducer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping(path = "/users/admin/state")
+@RequiredArgsConstructor
+@Slf4j
+public class UserStateController {
+	private final UserStateProducer userStateProducer;
+
+	// gui lai trang thai tat ca user len user.state (lan dau bat tinh nang, hoac sau khi topic bi tao lai)
+	@PostMapping("/republish")
+	@PreAuthorize("hasRole('ADMIN')")
+	public SuccessResponse<Integer> republish() {
+		log.info("POST /users/admin/state/republish requested");
+		return SuccessResponse.of(userStateProducer.republishAll());
+	}
+}
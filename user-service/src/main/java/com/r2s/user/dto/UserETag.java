@@ -0,0 +1,57 @@
+package com.r2s.user.dto;
+
+import com.r2s.core.exception.InvalidRequestException;
+import com.r2s.core.exception.PreconditionRequiredException;
+
+/**
+ * Strong entity tags of a user profile, derived from {@code users.version}:
+ * the tag changes exactly when the row is written.
+ */
+public final class UserETag {
+
+	private UserETag() {
+	}
+
+	public static String of(final Long version) {
+		return "\"" + version + "\"";
+	}
+
+	// If-None-Match: so sanh weak (bo W/), "*" khop moi version
+	public static boolean matches(final String ifNoneMatch, final Long version) {
+		if (ifNoneMatch == null || version == null) {
+			return false;
+		}
+		String current = of(version);
+		for (String tag : ifNoneMatch.split(",")) {
+			String candidate = tag.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals("*") || candidate.equals(current)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// If-Match -> version mong doi; bat buoc (thieu -> 428), "*" -> null: client chu dong ghi de khong kiem tra
+	public static Long parseIfMatch(final String header) {
+		if (header == null || header.isBlank()) {
+			throw new PreconditionRequiredException("user",
+					"If-Match is required: send the ETag of the profile you read, or * to overwrite");
+		}
+		if (header.trim().equals("*")) {
+			return null;
+		}
+		String tag = header.trim();
+		// If-Match chi so sanh strong, 1 UPDATE chi kiem tra duoc 1 version
+		if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+			throw new InvalidRequestException("user", "If-Match must be a single strong ETag or *");
+		}
+		try {
+			return Long.valueOf(tag.substring(1, tag.length() - 1));
+		} catch (NumberFormatException e) {
+			throw new InvalidRequestException("user", "If-Match must be a single strong ETag or *");
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.r2s.user.dto;
+
+import com.r2s.core.exception.InvalidRequestException;
+
+import lombok.Getter;
+
+/**
+ * Output formats of the admin user export.
+ */
+@Getter
+public enum UserExportFormat {
+	NDJSON("ndjson", "application/x-ndjson"),
+	CSV("csv", "text/csv");
+
+	private final String value;
+	private final String contentType;
+
+	UserExportFormat(final String value, final String contentType) {
+		this.value = value;
+		this.contentType = contentType;
+	}
+
+	public static UserExportFormat parse(final String value) {
+		for (UserExportFormat candidate : values()) {
+			if (candidate.value.equalsIgnoreCase(value)) {
+				return candidate;
+			}
+		}
+		throw new InvalidRequestException("user", "Unsupported export format '" + value + "', expected ndjson or csv");
+	}
+}
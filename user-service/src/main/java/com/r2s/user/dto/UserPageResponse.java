@@ -0,0 +1,18 @@
+package com.r2s.user.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageResponse {
+	private List<UserResponse> items;
+	// truyen lai qua ?cursor= de lay trang tiep theo; null = trang cuoi
+	private String nextCursor;
+}
@@ -2,6 +2,7 @@ package com.r2s.user.dto;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
 
@@ -24,6 +25,14 @@ public class UserResponse {
 	private String email;
 	private List<String> role;
 	private Integer id;
+	// di qua header ETag, khong nam trong body
+	@JsonIgnore
+	private Long version;
+
+	public UserResponse(final String username, final String fullname, final String email, final List<String> role,
+			final Integer id) {
+		this(username, fullname, email, role, id, null);
+	}
 
 	public static UserResponse fromEntity(final User user) {
 		UserResponse res = new UserResponse();
@@ -32,6 +41,7 @@ public class UserResponse {
 		res.setFullname(user.getFullname());
 		res.setId(user.getId());
 		res.setEmail(user.getEmail());
+		res.setVersion(user.getVersion());
 		return res;
 	}
 
@@ -0,0 +1,75 @@
+package com.r2s.user.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+import com.r2s.core.dto.UserSummaryRow;
+import com.r2s.core.exception.InvalidRequestException;
+
+import lombok.Getter;
+
+/**
+ * Sort orders of GET /users. Only unique, indexed columns are offered so the
+ * keyset condition alone identifies the next page.
+ */
+@Getter
+public enum UserSort {
+	ID_ASC("id", Sort.by(Sort.Direction.ASC, "id")),
+	ID_DESC("-id", Sort.by(Sort.Direction.DESC, "id")),
+	USERNAME_ASC("username", Sort.by(Sort.Direction.ASC, "username")),
+	USERNAME_DESC("-username", Sort.by(Sort.Direction.DESC, "username"));
+
+	private final String value;
+	private final Sort sort;
+
+	UserSort(final String value, final Sort sort) {
+		this.value = value;
+		this.sort = sort;
+	}
+
+	public static UserSort parse(final String value) {
+		for (UserSort candidate : values()) {
+			if (candidate.value.equalsIgnoreCase(value)) {
+				return candidate;
+			}
+		}
+		throw new InvalidRequestException("user",
+				"Unsupported sort '" + value + "', expected id, -id, username or -username");
+	}
+
+	public boolean byId() {
+		return this == ID_ASC || this == ID_DESC;
+	}
+
+	// cursor = base64url("<sort>:<key cua dong cuoi>"), client khong can hieu noi dung
+	public String encodeCursor(final UserSummaryRow last) {
+		String key = this.byId() ? String.valueOf(last.id()) : last.username();
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((this.value + ":" + key).getBytes(StandardCharsets.UTF_8));
+	}
+
+	// key cua dong cuoi trang truoc; cursor cua sort khac -> loi
+	public String decodeCursor(final String cursor) {
+		String decoded;
+		try {
+			decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidRequestException("user", "Invalid cursor");
+		}
+		String prefix = this.value + ":";
+		if (!decoded.startsWith(prefix) || decoded.length() == prefix.length()) {
+			throw new InvalidRequestException("user", "Cursor does not belong to sort '" + this.value + "'");
+		}
+		String key = decoded.substring(prefix.length());
+		if (this.byId()) {
+			try {
+				Integer.parseInt(key);
+			} catch (NumberFormatException e) {
+				throw new InvalidRequestException("user", "Invalid cursor");
+			}
+		}
+		return key;
+	}
+}
@@ -0,0 +1,95 @@
+package com.r2s.user.kafka;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.r2s.core.constant.KafkaTopics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves records from the user.registered DLT back to the retry topic, after
+ * the cause has been fixed. Progress is kept as the committed offset of the
+ * {@code user-dlt-replay} group, so each dead letter is replayed once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadLetterReplayService {
+	private static final String REPLAY_GROUP = "user-dlt-replay";
+	private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+	private final ConsumerFactory<Object, Object> consumerFactory;
+	private final KafkaTemplate<String, Object> kafkaTemplate;
+	private final MeterRegistry meterRegistry;
+
+	// tra ve so record da dua lai vao user.registered.retry
+	public synchronized int replay(int max) {
+		Properties overrides = new Properties();
+		overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+		overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.max(1, max)));
+
+		int replayed = 0;
+		try (Consumer<Object, Object> consumer = this.consumerFactory.createConsumer(REPLAY_GROUP, null, null,
+				overrides)) {
+			List<PartitionInfo> infos = consumer.partitionsFor(KafkaTopics.USER_REGISTERED_DLT);
+			// DLT chua duoc tao (chua co record nao that bai het retry) -> khong co gi de replay
+			if (infos == null || infos.isEmpty()) {
+				log.info("Dead letter topic {} does not exist yet, nothing to replay",
+						KafkaTopics.USER_REGISTERED_DLT);
+				return 0;
+			}
+			List<TopicPartition> partitions = infos.stream()
+					.map(info -> new TopicPartition(info.topic(), info.partition())).toList();
+			// assign thay vi subscribe: khong can cho rebalance cua group
+			consumer.assign(partitions);
+
+			while (replayed < max) {
+				ConsumerRecords<Object, Object> records = consumer.poll(POLL_TIMEOUT);
+				if (records.isEmpty()) {
+					break;
+				}
+				Map<TopicPartition, OffsetAndMetadata> done = new HashMap<>();
+				for (ConsumerRecord<Object, Object> record : records) {
+					if (replayed >= max) {
+						break;
+					}
+					this.kafkaTemplate.send(KafkaTopics.USER_REGISTERED_RETRY, (String) record.key(), record.value())
+							.get(10, TimeUnit.SECONDS);
+					done.put(new TopicPartition(record.topic(), record.partition()),
+							new OffsetAndMetadata(record.offset() + 1));
+					replayed++;
+				}
+				// chi commit nhung record da gui thanh cong
+				consumer.commitSync(done);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Dead letter replay interrupted after " + replayed + " records", e);
+		} catch (Exception e) {
+			throw new IllegalStateException("Dead letter replay failed after " + replayed + " records", e);
+		} finally {
+			this.meterRegistry.counter("user.events.replayed").increment(replayed);
+		}
+		log.info("Replayed {} dead-lettered user events to {}", replayed, KafkaTopics.USER_REGISTERED_RETRY);
+		return replayed;
+	}
+}
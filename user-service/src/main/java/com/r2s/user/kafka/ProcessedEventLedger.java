@@ -0,0 +1,125 @@
+package com.r2s.user.kafka;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.r2s.core.entity.ProcessedEvent;
+import com.r2s.core.repository.ProcessedEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deduplicates consumed events by id. The {@code processed_events} table is the
+ * source of truth and is written in the caller's transaction; a bounded LRU of
+ * recently committed ids answers most redeliveries (rebalances, retries)
+ * without touching the database.
+ */
+@Slf4j
+@Component
+public class ProcessedEventLedger implements MeterBinder {
+
+	private final ProcessedEventRepository processedEventRepository;
+	private final Cache<UUID, Boolean> recent;
+	private final Duration retention;
+	private volatile Counter duplicates;
+
+	public ProcessedEventLedger(ProcessedEventRepository processedEventRepository,
+			@Value("${user.processed-events.cache-size:100000}") long cacheSize,
+			@Value("${user.processed-events.retention:7d}") Duration retention) {
+		this.processedEventRepository = processedEventRepository;
+		this.recent = Caffeine.newBuilder().maximumSize(cacheSize).build();
+		this.retention = retention;
+	}
+
+	// true = event moi, da ghi vao ledger trong transaction hien tai
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean claim(UUID eventId) {
+		if (this.recent.getIfPresent(eventId) != null || this.processedEventRepository.claim(eventId) == 0) {
+			this.duplicate(eventId);
+			return false;
+		}
+		this.rememberAfterCommit(List.of(eventId));
+		return true;
+	}
+
+	// cho batch: 1 query kiem tra + insert theo JDBC batch; tra ve cac id chua xu ly
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Set<UUID> claimAll(Collection<UUID> eventIds) {
+		Set<UUID> fresh = new LinkedHashSet<>();
+		for (UUID eventId : eventIds) {
+			if (this.recent.getIfPresent(eventId) == null) {
+				fresh.add(eventId);
+			} else {
+				this.duplicate(eventId);
+			}
+		}
+		if (!fresh.isEmpty()) {
+			new HashSet<>(this.processedEventRepository.findProcessedIds(fresh)).forEach(eventId -> {
+				fresh.remove(eventId);
+				this.duplicate(eventId);
+			});
+		}
+		if (!fresh.isEmpty()) {
+			Instant now = Instant.now();
+			this.processedEventRepository.saveAll(fresh.stream().map(id -> new ProcessedEvent(id, now)).toList());
+			this.rememberAfterCommit(List.copyOf(fresh));
+		}
+		return fresh;
+	}
+
+	// ledger chi can giu lau hon thoi gian redelivery co the xay ra
+	@Scheduled(cron = "${user.processed-events.purge-cron:0 15 3 * * *}")
+	@Transactional
+	public void purgeExpired() {
+		int purged = this.processedEventRepository.deleteProcessedBefore(Instant.now().minus(this.retention));
+		log.info("Purged {} processed event ids older than {}", purged, this.retention);
+	}
+
+	// chi nho id sau khi commit: rollback thi event phai duoc xu ly lai
+	private void rememberAfterCommit(List<UUID> eventIds) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			eventIds.forEach(eventId -> this.recent.put(eventId, Boolean.TRUE));
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				eventIds.forEach(eventId -> ProcessedEventLedger.this.recent.put(eventId, Boolean.TRUE));
+			}
+		});
+	}
+
+	private void duplicate(UUID eventId) {
+		log.debug("Skipping already processed event {}", eventId);
+		this.recent.put(eventId, Boolean.TRUE);
+		Counter counter = this.duplicates;
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.duplicates = Counter.builder("user.events.duplicates")
+				.description("Redelivered events skipped by the processed-events ledger").register(registry);
+	}
+}
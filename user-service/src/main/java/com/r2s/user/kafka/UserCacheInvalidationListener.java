@@ -0,0 +1,38 @@
+package com.r2s.user.kafka;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.dto.UserCacheInvalidationEvent;
+import com.r2s.core.security.UserDetailsCache;
+import com.r2s.user.service.UserVersionCache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserCacheInvalidationListener {
+
+    private final UserDetailsCache userDetailsCache;
+    private final UserVersionCache userVersionCache;
+
+    // group rieng cho moi node de tat ca node deu nhan event (broadcast); group chua co offset bat dau tu event moi nhat
+    @KafkaListener(topics = KafkaTopics.USER_INVALIDATED, groupId = "${security.user-cache.invalidation-group-id}",
+            properties = "auto.offset.reset=latest")
+    public void listen(UserCacheInvalidationEvent event) {
+        log.debug("Received cache invalidation: username={}, reason={}", event.getUsername(), event.getReason());
+        userDetailsCache.evict(event.getUsername());
+        userVersionCache.evict(event.getUsername());
+    }
+
+    // user moi dang ky: xoa negative cache "username khong ton tai" tren moi node
+    @KafkaListener(topics = KafkaTopics.USER_REGISTERED, groupId = "${security.user-cache.invalidation-group-id}",
+            properties = "auto.offset.reset=latest")
+    public void onRegistered(CreateUserProfileDTO event) {
+        userDetailsCache.evict(event.getUsername());
+    }
+}
@@ -0,0 +1,27 @@
+package com.r2s.user.kafka;
+
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.UserCacheInvalidationEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserCacheInvalidationProducer {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void sendUserInvalidated(String username, String reason) {
+        UserCacheInvalidationEvent event = UserCacheInvalidationEvent.builder().username(username).reason(reason).build();
+        kafkaTemplate.send(KafkaTopics.USER_INVALIDATED, username, event).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to send cache invalidation for username={}: {}", username, ex.getMessage(), ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.r2s.user.kafka;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Service;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.user.service.UserProfileService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "user.consumer.batch-enabled", havingValue = "true", matchIfMissing = true)
+public class UserKafkaBatchConsumer {
+
+    private final UserProfileService userProfileService;
+
+    // ca batch cua 1 lan poll (toi da max-poll-records) -> 1 transaction
+    // moi consumer thread nhan 1 nhom partition; cung userId -> cung partition -> dung thu tu
+    @KafkaListener(topics = KafkaTopics.USER_REGISTERED, groupId = "user-group",
+            containerFactory = "batchKafkaListenerContainerFactory", concurrency = "${user.consumer.concurrency:1}")
+    public void listen(List<CreateUserProfileDTO> events) {
+        log.info("Received {} user registration events from Kafka", events.size());
+        try {
+            int created = userProfileService.createAll(events);
+            log.info("Created {} user profiles from a batch of {}", created, events.size());
+        } catch (Exception batchError) {
+            // batch loi (vd: 1 email trung) -> tao tung record de tim record loi;
+            // cac record truoc no da commit, record loi sang user.registered.retry, phan con lai poll lai
+            log.warn("Batch insert of {} profiles failed, falling back to one by one: {}", events.size(),
+                    batchError.getMessage());
+            for (int i = 0; i < events.size(); i++) {
+                try {
+                    userProfileService.create(events.get(i));
+                } catch (Exception e) {
+                    log.error("Error creating user profile for username: {} - {}", events.get(i).getUsername(),
+                            e.getMessage(), e);
+                    throw new BatchListenerFailedException("Failed to create user profile", e, i);
+                }
+            }
+        }
+    }
+}
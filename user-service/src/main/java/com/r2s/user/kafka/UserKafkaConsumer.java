@@ -1,20 +1,26 @@
 package com.r2s.user.kafka;
 
+import com.r2s.core.constant.KafkaTopics;
 import com.r2s.core.dto.CreateUserProfileDTO;
 import com.r2s.user.service.UserProfileService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+// tung record mot; mac dinh dung UserKafkaBatchConsumer
+@ConditionalOnProperty(name = "user.consumer.batch-enabled", havingValue = "false")
 public class UserKafkaConsumer {
 
     private final UserProfileService userProfileService;
 
-    @KafkaListener(topics = "user.registered", groupId = "user-group")
+    // moi consumer thread nhan 1 nhom partition; cung userId -> cung partition -> dung thu tu
+    @KafkaListener(topics = KafkaTopics.USER_REGISTERED, groupId = "user-group", concurrency = "${user.consumer.concurrency:1}",
+            containerFactory = "userRegisteredKafkaListenerContainerFactory")
     public void listen(CreateUserProfileDTO dto) {
         log.info("Received user registration event from Kafka: userId={}, username={}, email={}, fullName={}", 
                 dto.getUserId(), dto.getUsername(), dto.getEmail(), dto.getFullName());
@@ -0,0 +1,59 @@
+package com.r2s.user.kafka;
+
+import org.springframework.kafka.annotation.DltHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.stereotype.Service;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.user.service.UserProfileService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retries user.registered records that failed in the main consumer, off the
+ * main partitions: {@code user.registered.retry} (first retry), then
+ * {@code user.registered.retry-backoff-0..n} with exponential delays, then
+ * {@link KafkaTopics#USER_REGISTERED_DLT}. Creation is idempotent (event-id
+ * ledger), so a retry of an event that did get applied is a no-op.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserRegisteredRetryListener {
+
+	private final UserProfileService userProfileService;
+	private final MeterRegistry meterRegistry;
+
+	@RetryableTopic(attempts = "${user.consumer.retry.attempts:4}",
+			backoff = @Backoff(delayExpression = "${user.consumer.retry.initial-delay-ms:1000}",
+					multiplierExpression = "${user.consumer.retry.multiplier:2}",
+					maxDelayExpression = "${user.consumer.retry.max-delay-ms:60000}"),
+			retryTopicSuffix = "-backoff", dltTopicSuffix = "-dlt",
+			topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+			numPartitions = "${user.consumer.retry.partitions:1}")
+	@KafkaListener(topics = KafkaTopics.USER_REGISTERED_RETRY, groupId = "user-group-retry")
+	public void retry(CreateUserProfileDTO dto, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+		// so lan retry theo tung tang (retry, retry-backoff-0, ...) -> thay duoc retry dang sau toi dau
+		meterRegistry.counter("user.events.retries", "topic", topic).increment();
+		log.info("Retrying user profile creation: eventId={}, username={}, topic={}", dto.getEventId(),
+				dto.getUsername(), topic);
+		userProfileService.create(dto);
+	}
+
+	@DltHandler
+	public void deadLetter(CreateUserProfileDTO dto, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+			@Header(name = KafkaHeaders.EXCEPTION_MESSAGE, required = false) String error) {
+		meterRegistry.counter("user.events.dead-lettered").increment();
+		// record van nam tren DLT; replay bang POST /users/admin/dead-letters/replay sau khi sua loi
+		log.error("User profile event moved to {} after all retries: eventId={}, username={}, error={}", topic,
+				dto.getEventId(), dto.getUsername(), error);
+	}
+}
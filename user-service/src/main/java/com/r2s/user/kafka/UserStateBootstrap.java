@@ -0,0 +1,230 @@
+package com.r2s.user.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.UserStateEvent;
+import com.r2s.core.entity.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cold start of a replica with an empty {@code users} table: reads the
+ * compacted {@link KafkaTopics#USER_STATE} topic from the beginning up to the
+ * end offsets seen at startup and bulk-loads the latest state of every user.
+ * <p>
+ * Records go through a temporary staging table (upsert by id, delete on
+ * tombstone) in JDBC batches, then users and roles are inserted with one
+ * set-based statement each, all in one transaction: a failed bootstrap leaves
+ * the table empty and is retried on the next start. Runs as a lifecycle
+ * phase before the Kafka listener containers, so live consumption only starts
+ * once the snapshot is in place.
+ * <p>
+ * Opt-in ({@code user.state.bootstrap.enabled=true}). A broker that does not
+ * answer within {@code idle-timeout}, or a topic that does not exist or is
+ * empty, counts as nothing to load: the service starts with an empty table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "user.state.bootstrap.enabled", havingValue = "true")
+public class UserStateBootstrap implements SmartLifecycle {
+	private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+	static final String CREATE_STAGING = "create temporary table user_state_staging (id integer primary key, "
+			+ "username varchar(255), email varchar(255), fullname varchar(255), deleted boolean not null, "
+			+ "role_names text) on commit drop";
+	static final String UPSERT_STAGING = "insert into user_state_staging (id, username, email, fullname, deleted, "
+			+ "role_names) values (?, ?, ?, ?, ?, ?) on conflict (id) do update set username = excluded.username, "
+			+ "email = excluded.email, fullname = excluded.fullname, deleted = excluded.deleted, "
+			+ "role_names = excluded.role_names";
+	static final String DELETE_STAGING = "delete from user_state_staging where id = ?";
+	static final String INSERT_USERS = "insert into users (id, username, email, fullname, password, deleted) "
+			+ "select id, username, email, fullname, 'N/A', deleted from user_state_staging order by id "
+			+ "on conflict do nothing";
+	static final String INSERT_USER_ROLES = "insert into user_role (user_id, role_id) select s.id, r.id "
+			+ "from user_state_staging s join users u on u.id = s.id "
+			+ "join roles r on r.role_name = any (string_to_array(s.role_names, ','))";
+	// id insert tay -> day sequence len id lon nhat: khoi pooled tiep theo bat dau sau id do
+	static final String RESET_ID_SEQUENCE = "select setval('" + User.ID_SEQUENCE + "', greatest(coalesce(max(id), 0), 1)) "
+			+ "from users";
+
+	private final ConsumerFactory<Object, Object> consumerFactory;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${user.state.bootstrap.batch-size:5000}")
+	private int batchSize = 5000;
+
+	// khong nhan duoc record nao trong khoang nay ma chua toi end offset -> bao loi (broker/partition co van de)
+	@Value("${user.state.bootstrap.idle-timeout:30s}")
+	private Duration idleTimeout = Duration.ofSeconds(30);
+
+	private volatile boolean running;
+
+	@Override
+	public void start() {
+		this.running = true;
+		Boolean hasUsers = this.jdbcTemplate.queryForObject("select exists (select 1 from users)", Boolean.class);
+		if (Boolean.TRUE.equals(hasUsers)) {
+			log.info("User state bootstrap skipped: users table is not empty");
+			return;
+		}
+		long started = System.nanoTime();
+		Result result = this.transactionTemplate.execute(status -> this.load());
+		long millis = Math.max(1, Duration.ofNanos(System.nanoTime() - started).toMillis());
+		this.meterRegistry.counter("user.state.bootstrap.records").increment(result.records());
+		log.info("User state bootstrap loaded {} users from {} records in {} ms ({} records/s)", result.users(),
+				result.records(), millis, result.records() * 1000 / millis);
+	}
+
+	Result load() {
+		Properties overrides = new Properties();
+		overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+		overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(this.batchSize));
+		// fetch lon: doc tuan tu tu dau topic, uu tien throughput hon latency
+		overrides.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(1024 * 1024));
+		overrides.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, String.valueOf(8 * 1024 * 1024));
+		// metadata / end offsets: khong cho qua idle-timeout (mac dinh cua client la 60s)
+		overrides.put(ConsumerConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, String.valueOf(this.idleTimeout.toMillis()));
+
+		this.jdbcTemplate.execute(CREATE_STAGING);
+		long records = 0;
+		try (Consumer<Object, Object> consumer = this.consumerFactory.createConsumer("user-state-bootstrap", null,
+				null, overrides)) {
+			List<PartitionInfo> infos;
+			try {
+				infos = consumer.partitionsFor(KafkaTopics.USER_STATE);
+			} catch (TimeoutException e) {
+				log.warn("User state bootstrap skipped: no metadata for topic {} within {} ({})",
+						KafkaTopics.USER_STATE, this.idleTimeout, e.getMessage());
+				return new Result(0, 0);
+			}
+			List<TopicPartition> partitions = infos == null ? List.of()
+					: infos.stream().map(info -> new TopicPartition(info.topic(), info.partition())).toList();
+			if (partitions.isEmpty()) {
+				log.info("User state bootstrap: topic {} has no partitions yet", KafkaTopics.USER_STATE);
+				return new Result(0, 0);
+			}
+			// assign (khong join group, khong commit offset): snapshot toi end offset luc bat dau
+			consumer.assign(partitions);
+			consumer.seekToBeginning(partitions);
+			Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+			// key -> trang thai moi nhat trong batch (null = tombstone)
+			Map<Integer, UserStateEvent> pending = new LinkedHashMap<>();
+			long lastProgress = System.nanoTime();
+			while (!caughtUp(consumer, endOffsets)) {
+				ConsumerRecords<Object, Object> polled = consumer.poll(POLL_TIMEOUT);
+				if (polled.isEmpty()) {
+					if (System.nanoTime() - lastProgress > this.idleTimeout.toNanos()) {
+						throw new IllegalStateException("User state bootstrap stalled after " + records + " records");
+					}
+					continue;
+				}
+				lastProgress = System.nanoTime();
+				for (ConsumerRecord<Object, Object> record : polled) {
+					records++;
+					Integer userId = parseKey(record.key());
+					if (userId == null || (record.value() != null && !(record.value() instanceof UserStateEvent))) {
+						log.warn("Ignoring unexpected record on {} at offset {}", KafkaTopics.USER_STATE,
+								record.offset());
+						continue;
+					}
+					pending.put(userId, (UserStateEvent) record.value());
+				}
+				if (pending.size() >= this.batchSize) {
+					this.flush(pending);
+				}
+			}
+			this.flush(pending);
+		}
+
+		int users = this.jdbcTemplate.update(INSERT_USERS);
+		this.jdbcTemplate.update(INSERT_USER_ROLES);
+		this.jdbcTemplate.queryForObject(RESET_ID_SEQUENCE, Long.class);
+		return new Result(records, users);
+	}
+
+	private void flush(Map<Integer, UserStateEvent> pending) {
+		List<Object[]> upserts = new ArrayList<>(pending.size());
+		List<Object[]> deletes = new ArrayList<>();
+		pending.forEach((userId, state) -> {
+			if (state == null) {
+				deletes.add(new Object[] { userId });
+			} else {
+				String roleNames = state.getRoleNames() == null ? null : String.join(",", state.getRoleNames());
+				upserts.add(new Object[] { userId, state.getUsername(), state.getEmail(), state.getFullName(),
+						state.isDeleted(), roleNames });
+			}
+		});
+		if (!deletes.isEmpty()) {
+			this.jdbcTemplate.batchUpdate(DELETE_STAGING, deletes);
+		}
+		if (!upserts.isEmpty()) {
+			this.jdbcTemplate.batchUpdate(UPSERT_STAGING, upserts);
+		}
+		pending.clear();
+	}
+
+	private static boolean caughtUp(Consumer<Object, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+		for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+			if (consumer.position(end.getKey()) < end.getValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Integer parseKey(Object key) {
+		try {
+			return key == null ? null : Integer.valueOf(key.toString());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	// truoc cac listener container (chung start o DEFAULT_PHASE)
+	@Override
+	public int getPhase() {
+		return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+	}
+
+	record Result(long records, int users) {
+	}
+}
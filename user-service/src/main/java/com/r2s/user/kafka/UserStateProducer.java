@@ -0,0 +1,110 @@
+package com.r2s.user.kafka;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.UserStateEvent;
+import com.r2s.core.dto.UserSummaryRow;
+import com.r2s.core.entity.Role;
+import com.r2s.core.entity.User;
+import com.r2s.core.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the full state of a user to the log-compacted
+ * {@link KafkaTopics#USER_STATE} topic, keyed by user id, and a tombstone when
+ * the user is deleted. Inside a transaction the record is sent after commit,
+ * so rolled back changes never reach the topic.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStateProducer {
+
+	private final KafkaTemplate<String, Object> kafkaTemplate;
+	private final UserRepository userRepository;
+
+	@Value("${user.state.republish-page-size:1000}")
+	private int republishPageSize = 1000;
+
+	public void publish(UserStateEvent state) {
+		if (state.getUserId() == null) {
+			log.warn("Skipping user state without id for username={}", state.getUsername());
+			return;
+		}
+		this.afterCommit(() -> this.send(String.valueOf(state.getUserId()), state));
+	}
+
+	public void publish(User user) {
+		this.publish(toState(user));
+	}
+
+	// tombstone: compaction xoa toan bo record cu cua key nay
+	public void publishDeleted(Integer userId) {
+		this.afterCommit(() -> this.send(String.valueOf(userId), null));
+	}
+
+	// gui lai trang thai cua tat ca user (user co tu truoc khi co topic, hoac sau khi topic bi tao lai)
+	// duyet theo keyset tren id, moi trang 2 query (user + role), bo nho khong phu thuoc so user
+	public int republishAll() {
+		int published = 0;
+		Limit limit = Limit.of(this.republishPageSize);
+		List<UserSummaryRow> page = this.userRepository.findSummaries(Sort.by("id"), limit);
+		while (!page.isEmpty()) {
+			Map<Integer, List<String>> roles = this.userRepository
+					.findRoleNamesGroupedByUserId(page.stream().map(UserSummaryRow::id).toList());
+			for (UserSummaryRow row : page) {
+				this.send(String.valueOf(row.id()), UserStateEvent.builder().userId(row.id()).username(row.username())
+						.email(row.email()).fullName(row.fullname()).deleted(row.deleted())
+						.roleNames(roles.getOrDefault(row.id(), List.of())).build());
+			}
+			published += page.size();
+			if (page.size() < this.republishPageSize) {
+				break;
+			}
+			page = this.userRepository.findSummariesAfterId(page.get(page.size() - 1).id(), limit);
+		}
+		this.kafkaTemplate.flush();
+		log.info("Republished state of {} users to {}", published, KafkaTopics.USER_STATE);
+		return published;
+	}
+
+	public static UserStateEvent toState(User user) {
+		List<String> roleNames = user.getRoles() == null ? List.of()
+				: user.getRoles().stream().map(Role::getRoleName).toList();
+		return UserStateEvent.builder().userId(user.getId()).username(user.getUsername()).email(user.getEmail())
+				.fullName(user.getFullname()).deleted(user.isDeleted()).roleNames(roleNames).build();
+	}
+
+	private void afterCommit(Runnable send) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			send.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				send.run();
+			}
+		});
+	}
+
+	private void send(String key, UserStateEvent state) {
+		this.kafkaTemplate.send(KafkaTopics.USER_STATE, key, state).whenComplete((result, ex) -> {
+			if (ex != null) {
+				log.error("Failed to publish user state for id={}: {}", key, ex.getMessage(), ex);
+			}
+		});
+	}
+}
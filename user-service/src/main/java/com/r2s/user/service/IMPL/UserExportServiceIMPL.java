@@ -0,0 +1,180 @@
+package com.r2s.user.service.IMPL;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.r2s.user.dto.UserExportFormat;
+import com.r2s.user.service.UserExportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams the users table straight from a forward-only JDBC cursor to the
+ * output stream: rows are written as they are fetched, so memory depends on
+ * the fetch size, not on the number of users. Runs in one read-only
+ * transaction, which gives a consistent snapshot and lets the PostgreSQL
+ * driver honour the fetch size (it reads everything at once in autocommit).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserExportServiceIMPL implements UserExportService {
+	static final String EXPORT_QUERY = "select u.id, u.username, u.email, u.fullname, u.deleted, "
+			+ "(select string_agg(r.role_name, ',' order by r.role_name) from user_role ur "
+			+ "join roles r on r.id = ur.role_id where ur.user_id = u.id) as role_names from users u order by u.id";
+	static final String CSV_HEADER = "id,username,email,fullname,deleted,roles";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+
+	@Value("${user.export.fetch-size:1000}")
+	private int fetchSize = 1000;
+
+	@Override
+	@Transactional(readOnly = true)
+	public long export(UserExportFormat format, boolean gzip, OutputStream out) throws IOException {
+		long started = System.nanoTime();
+		// syncFlush: flush() day du lieu da nen ra ngay, client nhan duoc byte dau tien truoc khi xong
+		OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+		Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+		RowWriter rowWriter = format == UserExportFormat.CSV ? new CsvRowWriter(writer)
+				: new NdjsonRowWriter(writer, this.objectMapper.getFactory());
+		rowWriter.begin();
+		writer.flush();
+		long[] rows = { 0 };
+		try {
+			this.jdbcTemplate.query(con -> {
+				PreparedStatement statement = con.prepareStatement(EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY);
+				statement.setFetchSize(this.fetchSize);
+				return statement;
+			}, (ResultSet rs) -> {
+				try {
+					rowWriter.write(rs);
+					// dong dau tien di ngay, sau do de buffer tu day ra
+					if (rows[0]++ == 0) {
+						writer.flush();
+					}
+				} catch (IOException e) {
+					// client ngat ket noi: dung doc cursor
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		writer.flush();
+		if (target instanceof GZIPOutputStream gzipStream) {
+			gzipStream.finish();
+		}
+		log.info("Exported {} users as {}{} in {} ms", rows[0], format.getValue(), gzip ? ".gz" : "",
+				(System.nanoTime() - started) / 1_000_000);
+		return rows[0];
+	}
+
+	private interface RowWriter {
+		default void begin() throws IOException {
+		}
+
+		void write(ResultSet rs) throws SQLException, IOException;
+	}
+
+	private static final class NdjsonRowWriter implements RowWriter {
+		private final Writer writer;
+		private final JsonGenerator generator;
+
+		NdjsonRowWriter(Writer writer, JsonFactory factory) throws IOException {
+			this.writer = writer;
+			this.generator = factory.createGenerator(writer);
+			// generator khong duoc dong/flush writer (writer do service quan ly)
+			this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+			// dong phan cach bang '\n' tu ghi, khong dung dau cach mac dinh giua cac root value
+			this.generator.setRootValueSeparator(null);
+		}
+
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			this.generator.writeStartObject();
+			this.generator.writeNumberField("id", rs.getInt("id"));
+			this.generator.writeStringField("username", rs.getString("username"));
+			this.generator.writeStringField("email", rs.getString("email"));
+			this.generator.writeStringField("fullname", rs.getString("fullname"));
+			this.generator.writeBooleanField("deleted", rs.getBoolean("deleted"));
+			this.generator.writeArrayFieldStart("roles");
+			String roleNames = rs.getString("role_names");
+			if (roleNames != null) {
+				for (String roleName : roleNames.split(",")) {
+					this.generator.writeString(roleName);
+				}
+			}
+			this.generator.writeEndArray();
+			this.generator.writeEndObject();
+			this.generator.flush();
+			this.writer.write('\n');
+		}
+	}
+
+	private static final class CsvRowWriter implements RowWriter {
+		private final Writer writer;
+
+		CsvRowWriter(Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void begin() throws IOException {
+			this.writer.write(CSV_HEADER);
+			this.writer.write("\r\n");
+		}
+
+		@Override
+		public void write(ResultSet rs) throws SQLException, IOException {
+			this.writer.write(String.valueOf(rs.getInt("id")));
+			this.writer.write(',');
+			this.field(rs.getString("username"));
+			this.writer.write(',');
+			this.field(rs.getString("email"));
+			this.writer.write(',');
+			this.field(rs.getString("fullname"));
+			this.writer.write(',');
+			this.writer.write(String.valueOf(rs.getBoolean("deleted")));
+			this.writer.write(',');
+			this.field(rs.getString("role_names"));
+			this.writer.write("\r\n");
+		}
+
+		// RFC 4180: boc trong "" khi co dau phay, ngoac kep hoac xuong dong; null = o trong
+		private void field(String value) throws IOException {
+			if (value == null) {
+				return;
+			}
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+					&& value.indexOf('\r') < 0) {
+				this.writer.write(value);
+				return;
+			}
+			this.writer.write('"');
+			this.writer.write(value.replace("\"", "\"\""));
+			this.writer.write('"');
+		}
+	}
+}
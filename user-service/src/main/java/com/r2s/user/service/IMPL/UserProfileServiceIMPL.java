@@ -1,16 +1,28 @@
 package com.r2s.user.service.IMPL;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.dto.UserStateEvent;
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
 import com.r2s.core.repository.RoleRepository;
 import com.r2s.core.repository.UserRepository;
+import com.r2s.user.kafka.ProcessedEventLedger;
+import com.r2s.user.kafka.UserStateProducer;
 import com.r2s.user.service.UserProfileService;
 
 import lombok.RequiredArgsConstructor;
@@ -23,43 +35,87 @@ public class UserProfileServiceIMPL implements UserProfileService {
 
 	private final UserRepository userRepository;
 	private final RoleRepository roleRepository;
+	private final ProcessedEventLedger processedEventLedger;
+	private final UserStateProducer userStateProducer;
 
 	@Override
 	@Transactional
 	public void create(CreateUserProfileDTO dto) {
-		log.info("Creating user profile: username={}, email={}, fullName={}, roleNames={}", dto.getUsername(),
-				dto.getEmail(), dto.getFullName(), dto.getRoleNames());
+		log.info("Creating user profile: eventId={}, username={}, email={}, fullName={}, roleNames={}",
+				dto.getEventId(), dto.getUsername(), dto.getEmail(), dto.getFullName(), dto.getRoleNames());
 
-		if (userRepository.findByUsername(dto.getUsername()).isPresent()) {
+		// event da xu ly (redelivery sau rebalance / retry) -> bo qua, khong query users
+		if (dto.getEventId() != null && !processedEventLedger.claim(dto.getEventId())) {
+			return;
+		}
+
+		// INSERT ... ON CONFLICT (username) DO NOTHING thay cho findByUsername + save;
+		// trung email -> DataIntegrityViolationException, rollback ca ledger, consumer retry roi DLT
+		// password: Dummy password - user-service doesn't handle authentication
+		List<Integer> inserted = userRepository.insertIfAbsent(dto.getUsername(), dto.getEmail(), dto.getFullName(),
+				"N/A");
+		if (inserted.isEmpty()) {
 			log.warn("User with username {} already exists, skipping creation", dto.getUsername());
 			return;
 		}
 
-		// Create new user profile
-		User user = User.builder().username(dto.getUsername()).email(dto.getEmail()).fullname(dto.getFullName())
-				.password("N/A") // Dummy password - user-service doesn't handle authentication
-				.deleted(false).build();
+		Integer userId = inserted.get(0);
+		List<String> assigned = dto.getRoleNames() == null || dto.getRoleNames().isEmpty() ? List.of()
+				: userRepository.insertUserRoles(userId, dto.getRoleNames());
+		if (dto.getRoleNames() != null && assigned.size() < dto.getRoleNames().size()) {
+			log.warn("Some roles of user '{}' not found (requested roles: {}), assigned {}", dto.getUsername(),
+					dto.getRoleNames(), assigned);
+		}
+		log.info("User profile created successfully with ID: {} for username: {} with {} roles", userId,
+				dto.getUsername(), assigned.size());
+		// user.state mang role da gan trong DB, khong phai role yeu cau trong event
+		userStateProducer.publish(UserStateEvent.builder().userId(userId).username(dto.getUsername())
+				.email(dto.getEmail()).fullName(dto.getFullName()).roleNames(assigned).build());
+	}
+
+	@Override
+	@Transactional
+	public int createAll(List<CreateUserProfileDTO> dtos) {
+		// bo event da xu ly (1 query ledger cho ca batch), roi bo trung username (giu event dau tien)
+		Set<UUID> fresh = processedEventLedger.claimAll(dtos.stream().filter(Objects::nonNull)
+				.map(CreateUserProfileDTO::getEventId).filter(Objects::nonNull).toList());
+		Map<String, CreateUserProfileDTO> byUsername = new LinkedHashMap<>();
+		dtos.stream().filter(Objects::nonNull)
+				.filter(dto -> dto.getEventId() == null || fresh.remove(dto.getEventId()))
+				.forEach(dto -> byUsername.putIfAbsent(dto.getUsername(), dto));
+		if (byUsername.isEmpty()) {
+			return 0;
+		}
+
+		// 1 query cho username da ton tai, 1 query cho tat ca role
+		Set<String> existing = new HashSet<>(this.userRepository.findExistingUsernames(byUsername.keySet()));
+		Set<String> roleNames = byUsername.values().stream().map(CreateUserProfileDTO::getRoleNames)
+				.filter(Objects::nonNull).flatMap(Collection::stream).collect(Collectors.toSet());
+		Map<String, Role> rolesByName = roleNames.isEmpty() ? Map.of()
+				: this.roleRepository.findByRoleNameIn(roleNames).stream()
+						.collect(Collectors.toMap(Role::getRoleName, Function.identity()));
 
-		// Set roles if provided
-		if (dto.getRoleNames() != null && !dto.getRoleNames().isEmpty()) {
-			List<Role> roles = new ArrayList<>();
-			for (String roleName : dto.getRoleNames()) {
-				roleRepository.findByRoleName(roleName).ifPresentOrElse(roles::add,
-						() -> log.warn("Role '{}' not found in database for user '{}', skipping role assignment",
-								roleName, dto.getUsername()));
+		List<User> users = new ArrayList<>(byUsername.size());
+		for (CreateUserProfileDTO dto : byUsername.values()) {
+			if (existing.contains(dto.getUsername())) {
+				log.debug("User with username {} already exists, skipping creation", dto.getUsername());
+				continue;
 			}
-			if (!roles.isEmpty()) {
-				user.setRoles(roles);
-				log.info("Assigned {} roles to user: {}", roles.size(), roles.stream().map(Role::getRoleName).toList());
-			} else {
-				log.warn("No valid roles found for user '{}' (requested roles: {}), user will be created without roles",
-						dto.getUsername(), dto.getRoleNames());
+			List<Role> roles = dto.getRoleNames() == null ? List.of()
+					: dto.getRoleNames().stream().map(rolesByName::get).filter(Objects::nonNull).toList();
+			if (dto.getRoleNames() != null && roles.size() < dto.getRoleNames().size()) {
+				log.warn("Some roles of user '{}' not found (requested roles: {})", dto.getUsername(),
+						dto.getRoleNames());
 			}
+			users.add(User.builder().username(dto.getUsername()).email(dto.getEmail()).fullname(dto.getFullName())
+					.password("N/A").deleted(false).roles(new ArrayList<>(roles)).build());
 		}
 
-		User savedUser = userRepository.save(user);
-		log.info("User profile created successfully with ID: {} for username: {} with roles: {}", savedUser.getId(),
-				savedUser.getUsername(),
-				savedUser.getRoles() != null ? savedUser.getRoles().stream().map(Role::getRoleName).toList() : "none");
+		// insert theo JDBC batch (hibernate.jdbc.batch_size)
+		this.userRepository.saveAll(users);
+		users.forEach(this.userStateProducer::publish);
+		log.info("Created {} user profiles ({} skipped as existing or duplicate)", users.size(),
+				dtos.size() - users.size());
+		return users.size();
 	}
 }
@@ -1,15 +1,30 @@
 package com.r2s.user.service.IMPL;
 
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import com.r2s.core.dto.UserProfileRow;
+import com.r2s.core.dto.UserStateEvent;
+import com.r2s.core.dto.UserSummaryRow;
 import com.r2s.core.entity.User;
+import com.r2s.core.exception.UserAlreadyExistException;
 import com.r2s.core.exception.UserNotFoundException;
+import com.r2s.core.exception.UserVersionConflictException;
 import com.r2s.core.repository.UserRepository;
+import com.r2s.core.security.UserDetailsCache;
+import com.r2s.user.dto.UserPageResponse;
 import com.r2s.user.dto.UserResponse;
 import com.r2s.user.dto.UserResponse.UpdateUserRequest;
+import com.r2s.user.dto.UserSort;
+import com.r2s.user.kafka.UserCacheInvalidationProducer;
+import com.r2s.user.kafka.UserStateProducer;
 import com.r2s.user.service.UserService;
+import com.r2s.user.service.UserVersionCache;
 
 import lombok.RequiredArgsConstructor;
 
@@ -17,10 +32,45 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UserServiceIMPL implements UserService {
 	private final UserRepository userRepository;
+	private final UserDetailsCache userDetailsCache;
+	private final UserCacheInvalidationProducer invalidationProducer;
+	private final UserStateProducer userStateProducer;
+	private final UserVersionCache userVersionCache;
+
+	@Value("${user.list.default-page-size:50}")
+	private int defaultPageSize = 50;
+
+	@Value("${user.list.max-page-size:500}")
+	private int maxPageSize = 500;
 
 	@Override
-	public List<User> getAllUsers() {
-		return this.userRepository.findAll();
+	public UserPageResponse getUsers(String cursor, Integer size, String sort) {
+		UserSort order = UserSort.parse(sort);
+		int pageSize = size == null ? this.defaultPageSize : Math.max(1, Math.min(size, this.maxPageSize));
+		// lay du 1 dong de biet con trang sau hay khong
+		Limit limit = Limit.of(pageSize + 1);
+		String after = cursor == null || cursor.isBlank() ? null : order.decodeCursor(cursor);
+
+		List<UserSummaryRow> rows;
+		if (after == null) {
+			rows = this.userRepository.findSummaries(order.getSort(), limit);
+		} else {
+			rows = switch (order) {
+			case ID_ASC -> this.userRepository.findSummariesAfterId(Integer.valueOf(after), limit);
+			case ID_DESC -> this.userRepository.findSummariesBeforeId(Integer.valueOf(after), limit);
+			case USERNAME_ASC -> this.userRepository.findSummariesAfterUsername(after, limit);
+			case USERNAME_DESC -> this.userRepository.findSummariesBeforeUsername(after, limit);
+			};
+		}
+
+		boolean hasNext = rows.size() > pageSize;
+		List<UserSummaryRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+		// 1 query cho role cua ca trang
+		Map<Integer, List<String>> roles = this.userRepository
+				.findRoleNamesGroupedByUserId(page.stream().map(UserSummaryRow::id).toList());
+		List<UserResponse> items = page.stream().map(row -> new UserResponse(row.username(), row.fullname(),
+				row.email(), roles.getOrDefault(row.id(), List.of()), row.id())).toList();
+		return new UserPageResponse(items, hasNext ? order.encodeCursor(page.get(page.size() - 1)) : null);
 	}
 
 	@Override
@@ -28,34 +78,56 @@ public class UserServiceIMPL implements UserService {
 		User user = this.userRepository.findByUsername(username)
 				.orElseThrow(() -> new UserNotFoundException("User not found"));
 
+		// khong ghi version vao cache o day: user.invalidated den giua luc doc va luc ghi se bi ghi de bang version cu
 		return UserResponse.fromEntity(user);
 	}
 
 	@Override
-	public UserResponse updateUser(String username, UpdateUserRequest req) {
-		User user = this.userRepository.findByUsername(username)
-				.orElseThrow(() -> new UserNotFoundException("User Not Found"));
+	public Long getUserVersion(String username) {
+		return this.userVersionCache.get(username, this.userRepository::findVersionByUsername);
+	}
 
-		// Update fullname if provided
-		if (req.getFullName() != null && !req.getFullName().trim().isEmpty()) {
-			user.setFullname(req.getFullName());
-		}
+	@Override
+	public UserResponse updateUser(String username, UpdateUserRequest req, Long expectedVersion) {
+		// field trong = giu nguyen gia tri cu
+		String fullname = blankToNull(req.getFullName());
+		String email = blankToNull(req.getEmail());
 
-		// Update email if provided and different from current email
-		if (req.getEmail() != null && !req.getEmail().trim().isEmpty()) {
-			// Check if email is different from current email
-			if (!req.getEmail().equals(user.getEmail())) {
-				// Check if email already exists for another user
-				this.userRepository.findByEmail(req.getEmail()).ifPresent(existingUser -> {
-					if (!existingUser.getUsername().equals(username)) {
-						throw new UserNotFoundException("Email already exists: " + req.getEmail());
-					}
-				});
-				user.setEmail(req.getEmail());
-			}
+		// 1 UPDATE co dieu kien thay cho load entity + kiem tra email + save
+		UserProfileRow row;
+		try {
+			row = this.userRepository.updateProfile(username, fullname, email, expectedVersion).orElse(null);
+		} catch (DataIntegrityViolationException e) {
+			// request khac vua lay dung email nay (unique constraint)
+			throw new UserAlreadyExistException("Email already exists: " + email);
 		}
+		if (row == null) {
+			throw this.updateRejected(username, email, expectedVersion);
+		}
+
+		List<String> roleNames = row.getRoleNames() == null ? List.of() : List.of(row.getRoleNames().split(","));
+		UserResponse response = new UserResponse(row.getUsername(), row.getFullname(), row.getEmail(), roleNames,
+				row.getId(), row.getVersion());
+		this.invalidate(username, "UPDATED");
+		this.userVersionCache.put(username, row.getVersion());
+		this.userStateProducer.publish(UserStateEvent.builder().userId(row.getId()).username(row.getUsername())
+				.email(row.getEmail()).fullName(row.getFullname()).deleted(Boolean.TRUE.equals(row.getDeleted()))
+				.roleNames(roleNames).build());
+		return response;
+	}
 
-		return UserResponse.fromEntity(userRepository.save(user));
+	// UPDATE khong ghi dong nao: chi doc lai de tra ve loi dung (path loi, khong anh huong path thanh cong)
+	private RuntimeException updateRejected(String username, String email, Long expectedVersion) {
+		Long currentVersion = this.userRepository.findVersionByUsername(username).orElse(null);
+		if (currentVersion == null) {
+			return new UserNotFoundException("User Not Found");
+		}
+		if (email != null && this.userRepository.existsByEmailIgnoreCaseAndUsernameNot(email, username)) {
+			return new UserAlreadyExistException("Email already exists: " + email);
+		}
+		return new UserVersionConflictException(
+				"User was modified: expected version " + expectedVersion + ", current version " + currentVersion,
+				currentVersion);
 	}
 
 	@Override
@@ -63,5 +135,18 @@ public class UserServiceIMPL implements UserService {
 		User user = this.userRepository.findByUsername(username)
 				.orElseThrow(() -> new UserNotFoundException("User Not Found"));
 		userRepository.delete(user);
+		this.invalidate(username, "DELETED");
+		this.userStateProducer.publishDeleted(user.getId());
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value;
+	}
+
+	// xoa cache local ngay, cac node khac xoa qua Kafka
+	private void invalidate(String username, String reason) {
+		this.userDetailsCache.evict(username);
+		this.userVersionCache.evict(username);
+		this.invalidationProducer.sendUserInvalidated(username, reason);
 	}
 }
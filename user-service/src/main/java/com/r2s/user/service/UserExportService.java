@@ -0,0 +1,12 @@
+package com.r2s.user.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.r2s.user.dto.UserExportFormat;
+
+public interface UserExportService {
+
+	// ghi toan bo user (ke ca da xoa) vao out theo thu tu id, tra ve so dong da ghi
+	long export(UserExportFormat format, boolean gzip, OutputStream out) throws IOException;
+}
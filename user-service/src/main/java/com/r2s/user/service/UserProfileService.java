@@ -2,6 +2,11 @@ package com.r2s.user.service;
 
 import com.r2s.core.dto.CreateUserProfileDTO;
 
+import java.util.List;
+
 public interface UserProfileService {
     void create(CreateUserProfileDTO dto);
+
+    // tao nhieu profile trong 1 transaction, bo qua username da ton tai; tra ve so user da tao
+    int createAll(List<CreateUserProfileDTO> dtos);
 } 
\ No newline at end of file
@@ -1,18 +1,21 @@
 package com.r2s.user.service;
 
-import java.util.List;
-
-import com.r2s.core.entity.User;
+import com.r2s.user.dto.UserPageResponse;
 import com.r2s.user.dto.UserResponse;
 import com.r2s.user.dto.UserResponse.UpdateUserRequest;
 
 public interface UserService {
 
-	List<User> getAllUsers();
+	// trang user theo keyset: cursor = nextCursor cua trang truoc (null = trang dau), size null = mac dinh
+	UserPageResponse getUsers(String cursor, Integer size, String sort);
 
 	UserResponse getUserByUsername(final String username);
 
-	UserResponse updateUser(String username, UpdateUserRequest req);
+	// version hien tai (ETag), doc qua cache; null = user khong ton tai
+	Long getUserVersion(String username);
+
+	// expectedVersion: version tu If-Match, null = If-Match: * (khong kiem tra version)
+	UserResponse updateUser(String username, UpdateUserRequest req, Long expectedVersion);
 
 	void deleteUser(String username);
 }
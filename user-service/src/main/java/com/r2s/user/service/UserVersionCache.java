@@ -0,0 +1,60 @@
+package com.r2s.user.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Current {@code users.version} per username, so a conditional
+ * {@code GET /users/me} can be answered with 304 without querying the database.
+ * Writes on this node update the entry; writes elsewhere evict it through the
+ * {@code user.invalidated} topic, and the TTL bounds staleness if an
+ * invalidation is missed. Reads only fill the cache through {@link #get},
+ * where the database read runs inside the cache's per-key compute: an
+ * eviction arriving meanwhile waits for it and then removes the value, so a
+ * read can never outlive the invalidation of a newer write.
+ */
+@Component
+public class UserVersionCache implements MeterBinder {
+	private final Cache<String, Long> versions;
+
+	public UserVersionCache(@Value("${user.version-cache.maximum-size:100000}") final long maximumSize,
+			@Value("${user.version-cache.expire-after-write:5m}") final Duration expireAfterWrite) {
+		this.versions = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite)
+				.recordStats().build();
+	}
+
+	// null = user khong ton tai (khong cache)
+	public Long get(final String username, final Function<String, Optional<Long>> loader) {
+		// load trong compute cua key: evict() dong thoi phai cho load xong roi moi xoa
+		return this.versions.get(username, key -> loader.apply(key).orElse(null));
+	}
+
+	// version chi tang: request doc cham khong ghi de version moi hon cua request ghi
+	public void put(final String username, final Long version) {
+		if (username != null && version != null) {
+			this.versions.asMap().merge(username, version, Math::max);
+		}
+	}
+
+	public void evict(final String username) {
+		if (username != null) {
+			this.versions.invalidate(username);
+		}
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.versions, "user.version");
+	}
+}
@@ -0,0 +1,101 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.user.kafka.DeadLetterReplayService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterReplayServiceTest {
+	private static final TopicPartition PARTITION = new TopicPartition(KafkaTopics.USER_REGISTERED_DLT, 0);
+
+	@Mock
+	private ConsumerFactory<Object, Object> consumerFactory;
+
+	@Mock
+	private KafkaTemplate<String, Object> kafkaTemplate;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private DeadLetterReplayService replayService;
+
+	@Test
+	void replay_shouldReturnZeroWhenDeadLetterTopicDoesNotExist() {
+		// Setup: chua co record nao vao DLT -> topic chua duoc tao
+		MockConsumer<Object, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+		this.givenConsumer(consumer);
+
+		// Execute
+		int replayed = replayService.replay(100);
+
+		// Verify
+		assertEquals(0, replayed);
+		verifyNoInteractions(kafkaTemplate);
+		assertThat(consumer.closed()).isTrue();
+	}
+
+	@Test
+	void replay_shouldSendDeadLetteredRecordsToRetryTopicAndCommit() {
+		// Setup
+		MockConsumer<Object, Object> consumer = spy(new MockConsumer<>(OffsetResetStrategy.EARLIEST));
+		Node node = new Node(0, "localhost", 9092);
+		consumer.updatePartitions(KafkaTopics.USER_REGISTERED_DLT, List.of(new PartitionInfo(
+				KafkaTopics.USER_REGISTERED_DLT, 0, node, new Node[] { node }, new Node[] { node })));
+		consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+		CreateUserProfileDTO dto = CreateUserProfileDTO.builder().userId(7).username("vanb").build();
+		consumer.schedulePollTask(
+				() -> consumer.addRecord(new ConsumerRecord<>(KafkaTopics.USER_REGISTERED_DLT, 0, 0L, "7", dto)));
+		this.givenConsumer(consumer);
+		when(kafkaTemplate.send(KafkaTopics.USER_REGISTERED_RETRY, "7", dto))
+				.thenReturn(CompletableFuture.completedFuture(null));
+
+		// Execute
+		int replayed = replayService.replay(100);
+
+		// Verify
+		assertEquals(1, replayed);
+		verify(kafkaTemplate).send(KafkaTopics.USER_REGISTERED_RETRY, "7", dto);
+		verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(1)));
+		assertEquals(1, meterRegistry.counter("user.events.replayed").count());
+	}
+
+	private void givenConsumer(MockConsumer<Object, Object> consumer) {
+		when(consumerFactory.createConsumer(eq("user-dlt-replay"), isNull(), isNull(), any(Properties.class)))
+				.thenReturn(consumer);
+	}
+}
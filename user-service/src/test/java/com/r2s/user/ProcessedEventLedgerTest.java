@@ -0,0 +1,63 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.r2s.core.repository.ProcessedEventRepository;
+import com.r2s.user.kafka.ProcessedEventLedger;
+
+class ProcessedEventLedgerTest {
+
+	private final ProcessedEventRepository repository = mock(ProcessedEventRepository.class);
+	private final ProcessedEventLedger ledger = new ProcessedEventLedger(repository, 100, Duration.ofDays(7));
+
+	@Test
+	void claim_shouldAnswerRepeatedIdsFromMemory() {
+		UUID eventId = UUID.randomUUID();
+		when(repository.claim(eventId)).thenReturn(1);
+
+		assertTrue(ledger.claim(eventId));
+		assertFalse(ledger.claim(eventId));
+
+		// lan 2 khong cham DB
+		verify(repository, times(1)).claim(eventId);
+	}
+
+	@Test
+	void claim_shouldRejectIdAlreadyInTable() {
+		UUID eventId = UUID.randomUUID();
+		when(repository.claim(eventId)).thenReturn(0);
+
+		assertFalse(ledger.claim(eventId));
+	}
+
+	@Test
+	void claimAll_shouldReturnOnlyUnprocessedIds() {
+		UUID processed = UUID.randomUUID();
+		UUID fresh = UUID.randomUUID();
+		when(repository.findProcessedIds(anyCollection())).thenReturn(List.of(processed));
+
+		Set<UUID> claimed = ledger.claimAll(List.of(processed, fresh));
+
+		assertThat(claimed).containsExactly(fresh);
+		verify(repository).saveAll(anyCollection());
+		// ca 2 id deu da nho trong LRU -> batch sau khong query nua
+		assertThat(ledger.claimAll(List.of(processed, fresh))).isEmpty();
+		verify(repository, times(1)).findProcessedIds(anyCollection());
+		verify(repository, never()).claim(fresh);
+	}
+}
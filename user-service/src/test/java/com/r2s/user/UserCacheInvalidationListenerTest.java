@@ -0,0 +1,83 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.security.UserDetailsCache;
+import com.r2s.user.kafka.UserCacheInvalidationListener;
+import com.r2s.user.service.UserVersionCache;
+
+/**
+ * Consumer groups of the cache invalidation listeners: one group per
+ * instance so every node sees every event, with an id that survives a
+ * restart so the broker is not left with a new empty group each time.
+ */
+class UserCacheInvalidationListenerTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withInitializer(UserCacheInvalidationListenerTest::applicationProperties)
+			.withConfiguration(AutoConfigurations.of(KafkaAutoConfiguration.class))
+			.withUserConfiguration(UserCacheInvalidationListener.class)
+			.withBean(UserDetailsCache.class, () -> mock(UserDetailsCache.class))
+			.withBean(UserVersionCache.class, () -> mock(UserVersionCache.class))
+			// khong ket noi broker: chi kiem tra cau hinh container
+			.withPropertyValues("KAFKA_SERVER=localhost:9092", "spring.kafka.listener.auto-startup=false");
+
+	@Test
+	void groupId_shouldBeStableForHostAndPort() {
+		contextRunner.withPropertyValues("HOSTNAME=node-1").run(first -> {
+			List<MessageListenerContainer> containers = cacheContainers(first);
+
+			assertThat(containers).hasSize(2).allSatisfy(container -> {
+				assertThat(container.getGroupId()).isEqualTo("user-service-cache-node-1-8082");
+				assertThat(container.getContainerProperties().getKafkaConsumerProperties())
+						.containsEntry("auto.offset.reset", "latest");
+			});
+
+			// restart cung host: dung lai group cu
+			contextRunner.withPropertyValues("HOSTNAME=node-1").run(second -> {
+				assertThat(cacheContainers(second)).extracting(MessageListenerContainer::getGroupId)
+						.containsOnly(containers.get(0).getGroupId());
+			});
+		});
+	}
+
+	@Test
+	void groupId_shouldUseInstanceIdWhenSet() {
+		contextRunner.withPropertyValues("HOSTNAME=node-1", "INSTANCE_ID=user-service-0").run(context -> {
+			assertThat(cacheContainers(context)).extracting(MessageListenerContainer::getGroupId)
+					.containsOnly("user-service-cache-user-service-0");
+		});
+	}
+
+	private static List<MessageListenerContainer> cacheContainers(final ConfigurableApplicationContext context) {
+		List<MessageListenerContainer> containers = context.getBean(KafkaListenerEndpointRegistry.class)
+				.getListenerContainers().stream().toList();
+		assertThat(containers).flatExtracting(container -> List.of(container.getContainerProperties().getTopics()))
+				.containsExactlyInAnyOrder(KafkaTopics.USER_INVALIDATED, KafkaTopics.USER_REGISTERED);
+		return containers;
+	}
+
+	private static void applicationProperties(ConfigurableApplicationContext context) {
+		try {
+			context.getEnvironment().getPropertySources()
+					.addLast(new ResourcePropertySource("classpath:application.properties"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
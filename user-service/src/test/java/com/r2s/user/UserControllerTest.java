@@ -1,16 +1,24 @@
 package com.r2s.user;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.List;
@@ -25,12 +33,18 @@ import org.springframework.context.annotation.FilterType;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.r2s.core.entity.Role;
-import com.r2s.core.entity.User;
+import com.r2s.core.exception.InvalidRequestException;
+import com.r2s.core.exception.UserVersionConflictException;
+import com.r2s.user.dto.UserExportFormat;
+import com.r2s.user.dto.UserPageResponse;
 import com.r2s.user.dto.UserResponse;
 import com.r2s.user.dto.UserResponse.UpdateUserRequest;
+import com.r2s.user.kafka.DeadLetterReplayService;
+import com.r2s.user.kafka.UserStateProducer;
+import com.r2s.user.service.UserExportService;
 import com.r2s.user.service.UserService;
 import com.r2s.user.service.IMPL.UserServiceIMPL;
 
@@ -45,32 +59,46 @@ class UserControllerTest {
 	@MockBean
 	private UserService userService;
 
+	@MockBean
+	private DeadLetterReplayService deadLetterReplayService;
+
+	@MockBean
+	private UserStateProducer userStateProducer;
+
+	@MockBean
+	private UserExportService userExportService;
+
 	private final ObjectMapper objectMapper = new ObjectMapper();
 
 	// === GET /users - admin role ===
 	@Test
 	@WithMockUser(username = "admin", roles = { "ADMIN" })
-	void getAllUsers_shouldReturnListOfUsers() throws Exception {
-		Role adminRole = Role.builder().id(1).roleName("ADMIN").build();
-		Role userRole = Role.builder().id(2).roleName("USER").build();
-
-		List<User> mockUsers = List.of(
-				User.builder().id(1).username("admin").fullname("Admin").email("admin@example.com")
-						.roles(List.of(adminRole)).build(),
-				User.builder().id(2).username("jane").fullname("Jane Smith").email("jane@example.com")
-						.roles(List.of(userRole)).build());
+	void getUsers_shouldReturnPageWithNextCursor() throws Exception {
+		UserResponse admin = new UserResponse("admin", "Admin", "admin@example.com", List.of("ADMIN"), 1);
+		UserResponse jane = new UserResponse("jane", "Jane Smith", "jane@example.com", List.of("USER"), 2);
 
-		when(userService.getAllUsers()).thenReturn(mockUsers);
+		when(userService.getUsers("abc", 2, "username")).thenReturn(new UserPageResponse(List.of(admin, jane), "next"));
 
-		mockMvc.perform(get("/users"))
+		mockMvc.perform(get("/users").param("cursor", "abc").param("size", "2").param("sort", "username"))
 				.andDo(print()) // Debug: print response để xem format thực tế
 				.andExpect(status().isOk())
-				.andExpect(jsonPath("$.data", hasSize(2)))
-				.andExpect(jsonPath("$.data[0].username").value("admin"))
-				.andExpect(jsonPath("$.data[1].username").value("jane"))
+				.andExpect(jsonPath("$.data.items", hasSize(2)))
+				.andExpect(jsonPath("$.data.items[0].username").value("admin"))
+				.andExpect(jsonPath("$.data.items[1].role[0]").value("USER"))
+				.andExpect(jsonPath("$.data.nextCursor").value("next"))
+				.andExpect(jsonPath("$.size").value(2))
 				.andExpect(jsonPath("$.code").value("OK"));
 
-		verify(userService).getAllUsers();
+		verify(userService).getUsers("abc", 2, "username");
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = { "ADMIN" })
+	void getUsers_shouldDefaultToIdSortAndReturnBadRequestForInvalidCursor() throws Exception {
+		when(userService.getUsers("bad", null, "id")).thenThrow(new InvalidRequestException("user", "Invalid cursor"));
+
+		mockMvc.perform(get("/users").param("cursor", "bad")).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.code").value("BAD_REQUEST"));
 	}
 
 	// === GET /users/me ===
@@ -83,10 +111,13 @@ class UserControllerTest {
 		mockResponse.setEmail("john@example.com");
 		mockResponse.setRole(List.of("USER"));
 		mockResponse.setId(1);
+		mockResponse.setVersion(3L);
 
 		when(userService.getUserByUsername("john")).thenReturn(mockResponse);
 
 		mockMvc.perform(get("/users/me")).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"3\""))
+				.andExpect(header().string("Cache-Control", "no-cache, private"))
 				.andExpect(jsonPath("$.data.username").value("john"))
 				.andExpect(jsonPath("$.data.fullname").value("John Doe"))
 				.andExpect(jsonPath("$.data.email").value("john@example.com"))
@@ -95,6 +126,32 @@ class UserControllerTest {
 		verify(userService).getUserByUsername("john");
 	}
 
+	@Test
+	@WithMockUser(username = "john", roles = { "USER" })
+	void getMyProfile_shouldAnswerNotModifiedWithoutLoadingProfileWhenETagMatches() throws Exception {
+		when(userService.getUserVersion("john")).thenReturn(3L);
+
+		mockMvc.perform(get("/users/me").header("If-None-Match", "\"3\"")).andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", "\"3\""))
+				.andExpect(header().string("Cache-Control", "no-cache, private"))
+				.andExpect(content().string(""));
+
+		verify(userService, never()).getUserByUsername(any());
+	}
+
+	@Test
+	@WithMockUser(username = "john", roles = { "USER" })
+	void getMyProfile_shouldReturnFullProfileWhenETagIsStale() throws Exception {
+		UserResponse mockResponse = new UserResponse("john", "John Doe", "john@example.com", List.of("USER"), 1);
+		mockResponse.setVersion(4L);
+		when(userService.getUserVersion("john")).thenReturn(4L);
+		when(userService.getUserByUsername("john")).thenReturn(mockResponse);
+
+		mockMvc.perform(get("/users/me").header("If-None-Match", "\"3\"")).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"4\""))
+				.andExpect(jsonPath("$.data.username").value("john"));
+	}
+
 	// === PUT /users/me ===
 	@Test
 	@WithMockUser(username = "john", roles = { "USER" })
@@ -109,16 +166,53 @@ class UserControllerTest {
 		updated.setEmail("updated@example.com");
 		updated.setRole(List.of("USER"));
 		updated.setId(1);
+		updated.setVersion(4L);
 
-		when(userService.updateUser(eq("john"), any(UpdateUserRequest.class))).thenReturn(updated);
+		when(userService.updateUser(eq("john"), any(UpdateUserRequest.class), isNull())).thenReturn(updated);
 
-		mockMvc.perform(put("/users/me").contentType(MediaType.APPLICATION_JSON)
+		mockMvc.perform(put("/users/me").contentType(MediaType.APPLICATION_JSON).header("If-Match", "*")
 				.content(objectMapper.writeValueAsString(updateRequest))).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"4\""))
 				.andExpect(jsonPath("$.data.fullname").value("Updated Name"))
 				.andExpect(jsonPath("$.data.email").value("updated@example.com"))
+				.andExpect(jsonPath("$.data.version").doesNotExist())
 				.andExpect(jsonPath("$.code").value("OK"));
 
-		verify(userService).updateUser(eq("john"), any(UpdateUserRequest.class));
+		verify(userService).updateUser(eq("john"), any(UpdateUserRequest.class), isNull());
+	}
+
+	@Test
+	@WithMockUser(username = "john", roles = { "USER" })
+	void updateMyProfile_shouldPassIfMatchVersionAndAnswer412WhenStale() throws Exception {
+		UpdateUserRequest updateRequest = new UpdateUserRequest("updated@example.com", "Updated Name");
+		when(userService.updateUser(eq("john"), any(UpdateUserRequest.class), eq(3L)))
+				.thenThrow(new UserVersionConflictException("User was modified", 5L));
+
+		mockMvc.perform(put("/users/me").contentType(MediaType.APPLICATION_JSON).header("If-Match", "\"3\"")
+				.content(objectMapper.writeValueAsString(updateRequest))).andExpect(status().isPreconditionFailed())
+				.andExpect(header().string("ETag", "\"5\""))
+				.andExpect(jsonPath("$.code").value("PRECONDITION_FAILED"));
+	}
+
+	@Test
+	@WithMockUser(username = "john", roles = { "USER" })
+	void updateMyProfile_shouldRequireIfMatch() throws Exception {
+		UpdateUserRequest updateRequest = new UpdateUserRequest("updated@example.com", "Updated Name");
+
+		mockMvc.perform(put("/users/me").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(updateRequest))).andExpect(status().isPreconditionRequired())
+				.andExpect(jsonPath("$.code").value("PRECONDITION_REQUIRED"));
+
+		verify(userService, never()).updateUser(any(), any(), any());
+	}
+
+	@Test
+	@WithMockUser(username = "john", roles = { "USER" })
+	void updateMyProfile_shouldRejectWeakIfMatch() throws Exception {
+		UpdateUserRequest updateRequest = new UpdateUserRequest("updated@example.com", "Updated Name");
+
+		mockMvc.perform(put("/users/me").contentType(MediaType.APPLICATION_JSON).header("If-Match", "W/\"3\"")
+				.content(objectMapper.writeValueAsString(updateRequest))).andExpect(status().isBadRequest());
 	}
 
 	// === DELETE /users/{username} === (ADMIN only)
@@ -139,7 +233,7 @@ class UserControllerTest {
 	// === GET /users - unauthorized (no ADMIN role) ===
 	@Test
 	@WithMockUser(roles = { "USER" })
-	void getAllUsers_shouldReturnForbiddenForNonAdmin() throws Exception {
+	void getUsers_shouldReturnForbiddenForNonAdmin() throws Exception {
 		mockMvc.perform(get("/users")).andExpect(status().isForbidden());
 	}
 
@@ -150,4 +244,56 @@ class UserControllerTest {
 		mockMvc.perform(delete("/users/john")).andExpect(status().isForbidden());
 	}
 
+	// === POST /users/admin/dead-letters/replay === (ADMIN only)
+	@Test
+	@WithMockUser(username = "admin", roles = { "ADMIN" })
+	void replayDeadLetters_shouldReturnReplayedCount() throws Exception {
+		when(deadLetterReplayService.replay(50)).thenReturn(3);
+
+		mockMvc.perform(post("/users/admin/dead-letters/replay").param("max", "50")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.data").value(3)).andExpect(jsonPath("$.code").value("OK"));
+
+		verify(deadLetterReplayService).replay(50);
+	}
+
+	@Test
+	@WithMockUser(username = "user", roles = { "USER" })
+	void replayDeadLetters_shouldReturnForbiddenForNonAdmin() throws Exception {
+		mockMvc.perform(post("/users/admin/dead-letters/replay")).andExpect(status().isForbidden());
+	}
+
+	// === POST /users/admin/state/republish === (ADMIN only)
+	@Test
+	@WithMockUser(username = "admin", roles = { "ADMIN" })
+	void republishUserState_shouldReturnPublishedCount() throws Exception {
+		when(userStateProducer.republishAll()).thenReturn(7);
+
+		mockMvc.perform(post("/users/admin/state/republish")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.data").value(7));
+	}
+
+	// === GET /users/admin/export === (ADMIN only)
+	@Test
+	@WithMockUser(username = "admin", roles = { "ADMIN" })
+	void exportUsers_shouldStreamAttachment() throws Exception {
+		MvcResult result = mockMvc.perform(get("/users/admin/export").param("format", "csv").param("gzip", "true"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/gzip"))
+				.andExpect(header().string("Content-Disposition", containsString(".csv.gz")));
+		verify(userExportService).export(eq(UserExportFormat.CSV), eq(true), any());
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = { "ADMIN" })
+	void exportUsers_shouldRejectUnknownFormat() throws Exception {
+		mockMvc.perform(get("/users/admin/export").param("format", "xml")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@WithMockUser(username = "user", roles = { "USER" })
+	void exportUsers_shouldReturnForbiddenForNonAdmin() throws Exception {
+		mockMvc.perform(get("/users/admin/export")).andExpect(status().isForbidden());
+	}
 }
@@ -0,0 +1,153 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.r2s.core.exception.InvalidRequestException;
+import com.r2s.user.dto.UserExportFormat;
+import com.r2s.user.service.IMPL.UserExportServiceIMPL;
+
+@ExtendWith(MockitoExtension.class)
+class UserExportServiceTest {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@InjectMocks
+	private UserExportServiceIMPL exportService;
+
+	@Test
+	void export_shouldStreamNdjsonFromForwardOnlyCursorWithFetchSize() throws Exception {
+		// Setup
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+		this.rows(connection, row(1, "vana", "vana@example.com", "Nguyen Van A", false, "ADMIN,USER"),
+				row(2, "vanb", null, null, true, null));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// Execute
+		long exported = exportService.export(UserExportFormat.NDJSON, false, out);
+
+		// Verify
+		assertEquals(2, exported);
+		verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY),
+				eq(ResultSet.CONCUR_READ_ONLY));
+		verify(statement).setFetchSize(1000);
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertThat(lines).hasSize(2);
+		assertEquals("{\"id\":1,\"username\":\"vana\",\"email\":\"vana@example.com\",\"fullname\":\"Nguyen Van A\","
+				+ "\"deleted\":false,\"roles\":[\"ADMIN\",\"USER\"]}", lines.get(0));
+		assertEquals("{\"id\":2,\"username\":\"vanb\",\"email\":null,\"fullname\":null,\"deleted\":true,\"roles\":[]}",
+				lines.get(1));
+	}
+
+	@Test
+	void export_shouldWriteGzippedCsvWithHeaderAndQuotedFields() throws Exception {
+		// Setup
+		this.rows(mock(Connection.class, Answers.RETURNS_MOCKS),
+				row(1, "vana", "vana@example.com", "Nguyen, \"A\"", false, "ADMIN,USER"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// Execute
+		exportService.export(UserExportFormat.CSV, true, out);
+
+		// Verify
+		String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+				StandardCharsets.UTF_8);
+		assertEquals("id,username,email,fullname,deleted,roles\r\n"
+				+ "1,vana,vana@example.com,\"Nguyen, \"\"A\"\"\",false,\"ADMIN,USER\"\r\n", csv);
+	}
+
+	@Test
+	void export_shouldPropagateClientDisconnect() throws Exception {
+		// Setup: client dong ket noi sau header
+		this.rows(mock(Connection.class, Answers.RETURNS_MOCKS), row(1, "vana", null, null, false, null));
+		OutputStream broken = new OutputStream() {
+			private int written;
+
+			@Override
+			public void write(int b) throws IOException {
+				this.write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				this.written += len;
+				if (this.written > 50) {
+					throw new IOException("Broken pipe");
+				}
+			}
+		};
+
+		// Execute & Verify
+		assertThrows(IOException.class, () -> exportService.export(UserExportFormat.CSV, false, broken));
+	}
+
+	@Test
+	void parse_shouldRejectUnknownFormat() {
+		assertEquals(UserExportFormat.CSV, UserExportFormat.parse("CSV"));
+		assertThrows(InvalidRequestException.class, () -> UserExportFormat.parse("xml"));
+	}
+
+	// gia lap JdbcTemplate: tao statement tu creator roi day tung dong vao handler
+	private void rows(Connection connection, ResultSet... rows) throws SQLException {
+		doAnswer(invocation -> {
+			PreparedStatementCreator creator = invocation.getArgument(0);
+			RowCallbackHandler handler = invocation.getArgument(1);
+			creator.createPreparedStatement(connection);
+			for (ResultSet rs : rows) {
+				handler.processRow(rs);
+			}
+			return null;
+		}).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+	}
+
+	private static ResultSet row(int id, String username, String email, String fullname, boolean deleted,
+			String roleNames) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getInt("id")).thenReturn(id);
+		when(rs.getString("username")).thenReturn(username);
+		when(rs.getString("email")).thenReturn(email);
+		when(rs.getString("fullname")).thenReturn(fullname);
+		when(rs.getBoolean("deleted")).thenReturn(deleted);
+		when(rs.getString("role_names")).thenReturn(roleNames);
+		return rs;
+	}
+}
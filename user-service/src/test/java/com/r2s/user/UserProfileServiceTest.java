@@ -0,0 +1,202 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.r2s.core.dto.CreateUserProfileDTO;
+import com.r2s.core.dto.UserStateEvent;
+import com.r2s.core.entity.Role;
+import com.r2s.core.entity.User;
+import com.r2s.core.repository.RoleRepository;
+import com.r2s.core.repository.UserRepository;
+import com.r2s.user.kafka.ProcessedEventLedger;
+import com.r2s.user.kafka.UserStateProducer;
+import com.r2s.user.service.IMPL.UserProfileServiceIMPL;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileServiceTest {
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private RoleRepository roleRepository;
+
+	@Mock
+	private ProcessedEventLedger processedEventLedger;
+
+	@Mock
+	private UserStateProducer userStateProducer;
+
+	@InjectMocks
+	private UserProfileServiceIMPL userProfileService;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void createAll_shouldSkipExistingAndDuplicateUsernamesWithSetBasedLookups() {
+		// Setup
+		Role userRole = Role.builder().id(1).roleName("USER").build();
+		Role adminRole = Role.builder().id(2).roleName("ADMIN").build();
+		when(userRepository.findExistingUsernames(Set.of("alice", "bob", "carol"))).thenReturn(List.of("bob"));
+		when(roleRepository.findByRoleNameIn(Set.of("USER", "ADMIN"))).thenReturn(List.of(userRole, adminRole));
+
+		List<CreateUserProfileDTO> batch = List.of(profile("alice", "USER"), profile("bob", "USER"),
+				profile("carol", "USER", "ADMIN"), profile("alice", "ADMIN"));
+		when(processedEventLedger.claimAll(anyCollection()))
+				.thenReturn(new HashSet<>(batch.stream().map(CreateUserProfileDTO::getEventId).toList()));
+
+		// Execute: bob da ton tai, alice bi trung trong batch
+		int created = userProfileService.createAll(batch);
+
+		// Verify
+		assertEquals(2, created);
+		ArgumentCaptor<List<User>> saved = ArgumentCaptor.forClass(List.class);
+		verify(userRepository, times(1)).saveAll(saved.capture());
+		assertThat(saved.getValue()).extracting(User::getUsername).containsExactly("alice", "carol");
+		assertThat(saved.getValue().get(0).getRoles()).containsExactly(userRole);
+		assertThat(saved.getValue().get(1).getRoles()).containsExactly(userRole, adminRole);
+		verify(userStateProducer).publish(saved.getValue().get(0));
+		verify(userStateProducer).publish(saved.getValue().get(1));
+		verify(userRepository, never()).findByUsername(any());
+		verify(roleRepository, never()).findByRoleName(any());
+	}
+
+	@Test
+	void createAll_shouldNotQueryRolesWhenNoneRequested() {
+		// Setup
+		when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+		when(processedEventLedger.claimAll(anyCollection())).thenReturn(new HashSet<>());
+		CreateUserProfileDTO dto = CreateUserProfileDTO.builder().userId(1).username("norole")
+				.email("norole@example.com").fullName("No Role").build();
+
+		// Execute
+		int created = userProfileService.createAll(List.of(dto));
+
+		// Verify
+		assertEquals(1, created);
+		verify(roleRepository, never()).findByRoleNameIn(anyCollection());
+	}
+
+	@Test
+	void createAll_shouldSkipEventsAlreadyInLedger() {
+		// Setup: event cua alice da xu ly truoc do
+		CreateUserProfileDTO replayed = profile("alice", "USER");
+		CreateUserProfileDTO fresh = profile("dave", "USER");
+		when(processedEventLedger.claimAll(List.of(replayed.getEventId(), fresh.getEventId())))
+				.thenReturn(new HashSet<>(Set.of(fresh.getEventId())));
+		when(userRepository.findExistingUsernames(Set.of("dave"))).thenReturn(List.of());
+		when(roleRepository.findByRoleNameIn(Set.of("USER"))).thenReturn(List.of());
+
+		// Execute
+		int created = userProfileService.createAll(List.of(replayed, fresh));
+
+		// Verify
+		assertEquals(1, created);
+	}
+
+	@Test
+	void create_shouldInsertWithoutReadWhenEventIsNew() {
+		// Setup
+		CreateUserProfileDTO dto = profile("erin", "USER", "ADMIN");
+		when(processedEventLedger.claim(dto.getEventId())).thenReturn(true);
+		when(userRepository.insertIfAbsent("erin", "erin@example.com", "erin", "N/A")).thenReturn(List.of(42));
+		when(userRepository.insertUserRoles(42, List.of("USER", "ADMIN"))).thenReturn(List.of("ADMIN", "USER"));
+
+		// Execute
+		userProfileService.create(dto);
+
+		// Verify
+		verify(userRepository).insertUserRoles(42, List.of("USER", "ADMIN"));
+		verify(userRepository, never()).findByUsername(any());
+		verify(userRepository, never()).save(any(User.class));
+		ArgumentCaptor<UserStateEvent> state = ArgumentCaptor.forClass(UserStateEvent.class);
+		verify(userStateProducer).publish(state.capture());
+		assertEquals(42, state.getValue().getUserId());
+		assertEquals("erin", state.getValue().getUsername());
+		assertEquals(List.of("ADMIN", "USER"), state.getValue().getRoleNames());
+	}
+
+	@Test
+	void create_shouldPublishOnlyRolesActuallyAssigned() {
+		// Setup: role "AUDITOR" khong ton tai trong bang roles
+		CreateUserProfileDTO dto = profile("gina", "USER", "AUDITOR");
+		when(processedEventLedger.claim(dto.getEventId())).thenReturn(true);
+		when(userRepository.insertIfAbsent("gina", "gina@example.com", "gina", "N/A")).thenReturn(List.of(43));
+		when(userRepository.insertUserRoles(43, List.of("USER", "AUDITOR"))).thenReturn(List.of("USER"));
+
+		// Execute
+		userProfileService.create(dto);
+
+		// Verify
+		ArgumentCaptor<UserStateEvent> state = ArgumentCaptor.forClass(UserStateEvent.class);
+		verify(userStateProducer).publish(state.capture());
+		assertEquals(List.of("USER"), state.getValue().getRoleNames());
+	}
+
+	@Test
+	void create_shouldSkipRedeliveredEvent() {
+		// Setup
+		CreateUserProfileDTO dto = profile("erin", "USER");
+		when(processedEventLedger.claim(dto.getEventId())).thenReturn(false);
+
+		// Execute
+		userProfileService.create(dto);
+
+		// Verify
+		verify(userRepository, never()).insertIfAbsent(any(), any(), any(), any());
+	}
+
+	@Test
+	void create_shouldNotAssignRolesWhenUsernameAlreadyExists() {
+		// Setup
+		CreateUserProfileDTO dto = profile("erin", "USER");
+		when(processedEventLedger.claim(dto.getEventId())).thenReturn(true);
+		when(userRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(List.of());
+
+		// Execute
+		userProfileService.create(dto);
+
+		// Verify
+		verify(userRepository, never()).insertUserRoles(any(), anyCollection());
+		verify(userStateProducer, never()).publish(any(UserStateEvent.class));
+	}
+
+	@Test
+	void create_shouldFailWhenEmailBelongsToAnotherUser() {
+		// Setup: username moi nhung email da co user khac dung -> unique constraint
+		CreateUserProfileDTO dto = profile("erin", "USER");
+		when(processedEventLedger.claim(dto.getEventId())).thenReturn(true);
+		when(userRepository.insertIfAbsent(any(), any(), any(), any()))
+				.thenThrow(new DataIntegrityViolationException("users_email_key"));
+
+		// Execute + Verify: loi di ra consumer (retry / DLT), khong coi la user da ton tai
+		assertThrows(DataIntegrityViolationException.class, () -> userProfileService.create(dto));
+		verify(userStateProducer, never()).publish(any(UserStateEvent.class));
+	}
+
+	private static CreateUserProfileDTO profile(String username, String... roles) {
+		return CreateUserProfileDTO.builder().eventId(UUID.randomUUID())
+				.eventVersion(CreateUserProfileDTO.CURRENT_VERSION).userId(username.hashCode()).username(username)
+				.email(username + "@example.com").fullName(username).roleNames(List.of(roles)).build();
+	}
+}
@@ -0,0 +1,92 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.user.config.KafkaConsumerConfig;
+import com.r2s.user.kafka.UserKafkaBatchConsumer;
+import com.r2s.user.kafka.UserKafkaConsumer;
+import com.r2s.user.service.UserProfileService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The user.registered listeners as the service wires them: application.properties,
+ * Boot's Kafka auto-configuration and {@link KafkaConsumerConfig}. Each
+ * partition of the topic (auth-service {@code kafka.topics.user-registered.partitions},
+ * default 6) needs its own consumer thread in the single default instance.
+ */
+class UserRegisteredConsumerConcurrencyTest {
+	// mac dinh cua kafka.topics.user-registered.partitions (auth-service) va docker-compose
+	private static final int USER_REGISTERED_PARTITIONS = 6;
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withInitializer(UserRegisteredConsumerConcurrencyTest::applicationProperties)
+			.withConfiguration(AutoConfigurations.of(KafkaAutoConfiguration.class))
+			.withUserConfiguration(KafkaConsumerConfig.class, UserKafkaBatchConsumer.class, UserKafkaConsumer.class)
+			.withBean(UserProfileService.class, () -> mock(UserProfileService.class))
+			.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+			// khong ket noi broker: chi kiem tra cau hinh container
+			.withPropertyValues("KAFKA_SERVER=localhost:9092", "spring.kafka.listener.auto-startup=false");
+
+	@Test
+	void batchListener_shouldRunOneConsumerThreadPerPartition() {
+		contextRunner.run(context -> {
+			assertThat(context).hasSingleBean(UserKafkaBatchConsumer.class).doesNotHaveBean(UserKafkaConsumer.class);
+
+			ConcurrentMessageListenerContainer<?, ?> container = userRegisteredContainer(context);
+
+			assertThat(container.getConcurrency()).isEqualTo(USER_REGISTERED_PARTITIONS);
+			assertThat(container.getContainerProperties().getTopics()).containsExactly(KafkaTopics.USER_REGISTERED);
+		});
+	}
+
+	@Test
+	void recordListener_shouldRunOneConsumerThreadPerPartition() {
+		contextRunner.withPropertyValues("user.consumer.batch-enabled=false").run(context -> {
+			assertThat(context).hasSingleBean(UserKafkaConsumer.class).doesNotHaveBean(UserKafkaBatchConsumer.class);
+
+			assertThat(userRegisteredContainer(context).getConcurrency()).isEqualTo(USER_REGISTERED_PARTITIONS);
+		});
+	}
+
+	@Test
+	void concurrency_shouldFollowConsumerProperty() {
+		contextRunner.withPropertyValues("USER_CONSUMER_CONCURRENCY=3").run(context -> {
+			assertThat(userRegisteredContainer(context).getConcurrency()).isEqualTo(3);
+		});
+	}
+
+	private static ConcurrentMessageListenerContainer<?, ?> userRegisteredContainer(
+			ConfigurableApplicationContext context) {
+		MessageListenerContainer container = context.getBean(KafkaListenerEndpointRegistry.class)
+				.getListenerContainers().stream().filter(candidate -> "user-group".equals(candidate.getGroupId()))
+				.findFirst().orElseThrow();
+		assertThat(container.isRunning()).isFalse();
+		return (ConcurrentMessageListenerContainer<?, ?>) container;
+	}
+
+	private static void applicationProperties(ConfigurableApplicationContext context) {
+		try {
+			context.getEnvironment().getPropertySources()
+					.addLast(new ResourcePropertySource("classpath:application.properties"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
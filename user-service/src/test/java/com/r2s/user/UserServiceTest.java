@@ -1,29 +1,55 @@
 package com.r2s.user;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import com.r2s.core.dto.UserProfileRow;
+import com.r2s.core.dto.UserStateEvent;
+import com.r2s.core.dto.UserSummaryRow;
 import com.r2s.core.entity.Role;
 import com.r2s.core.entity.User;
+import com.r2s.core.exception.InvalidRequestException;
+import com.r2s.core.exception.UserAlreadyExistException;
 import com.r2s.core.exception.UserNotFoundException;
+import com.r2s.core.exception.UserVersionConflictException;
 import com.r2s.core.repository.UserRepository;
+import com.r2s.core.security.UserDetailsCache;
+import com.r2s.user.dto.UserPageResponse;
 import com.r2s.user.dto.UserResponse;
 import com.r2s.user.dto.UserResponse.UpdateUserRequest;
+import com.r2s.user.dto.UserSort;
+import com.r2s.user.kafka.UserCacheInvalidationProducer;
+import com.r2s.user.kafka.UserStateProducer;
+import com.r2s.user.service.UserVersionCache;
 import com.r2s.user.service.IMPL.UserServiceIMPL;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,30 +58,71 @@ class UserServiceTest {
 	@Mock
 	private UserRepository userRepository;
 
+	@Mock
+	private UserDetailsCache userDetailsCache;
+
+	@Mock
+	private UserCacheInvalidationProducer invalidationProducer;
+
+	@Mock
+	private UserStateProducer userStateProducer;
+
+	@Spy
+	private UserVersionCache userVersionCache = new UserVersionCache(100, Duration.ofMinutes(5));
+
 	@InjectMocks
 	private UserServiceIMPL userService;
 
-	// ===== getAllUsers =====
+	// ===== getUsers =====
 	@Test
-	void getAllUsers_shouldReturnListOfUsers() {
-		Role userRole = Role.builder().id(1).roleName("USER").build();
-		Role adminRole = Role.builder().id(2).roleName("ADMIN").build();
+	void getUsers_shouldReturnFirstPageWithCursorAndBatchedRoles() {
+		// lay size + 1 dong de biet con trang sau
+		when(userRepository.findSummaries(UserSort.ID_ASC.getSort(), Limit.of(3)))
+				.thenReturn(List.of(row(1, "john"), row(2, "jane"), row(3, "mike")));
+		when(userRepository.findRoleNamesGroupedByUserId(List.of(1, 2)))
+				.thenReturn(Map.of(1, List.of("USER"), 2, List.of("USER", "ADMIN")));
+
+		UserPageResponse page = userService.getUsers(null, 2, "id");
+
+		assertEquals(2, page.getItems().size());
+		assertEquals("john", page.getItems().get(0).getUsername());
+		assertEquals(List.of("USER", "ADMIN"), page.getItems().get(1).getRole());
+		assertEquals(UserSort.ID_ASC.encodeCursor(row(2, "jane")), page.getNextCursor());
+		verify(userRepository, never()).findAll();
+	}
+
+	@Test
+	void getUsers_shouldContinueAfterCursorAndEndOnLastPage() {
+		String cursor = UserSort.USERNAME_DESC.encodeCursor(row(5, "mike"));
+		when(userRepository.findSummariesBeforeUsername("mike", Limit.of(51))).thenReturn(List.of(row(4, "jane")));
+		when(userRepository.findRoleNamesGroupedByUserId(List.of(4))).thenReturn(Map.of());
 
-		List<User> mockUsers = List.of(
-				User.builder().id(1).username("john").fullname("John Doe").email("john@example.com")
-						.roles(List.of(userRole)).build(),
-				User.builder().id(2).username("jane").fullname("Jane Smith").email("jane@example.com")
-						.roles(List.of(adminRole)).build());
+		UserPageResponse page = userService.getUsers(cursor, null, "-username");
 
-		when(userRepository.findAll()).thenReturn(mockUsers);
+		assertEquals(1, page.getItems().size());
+		assertEquals(List.of(), page.getItems().get(0).getRole());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	void getUsers_shouldCapPageSize() {
+		when(userRepository.findSummaries(UserSort.ID_DESC.getSort(), Limit.of(501))).thenReturn(List.of());
 
-		List<User> result = userService.getAllUsers();
+		UserPageResponse page = userService.getUsers(null, 100_000, "-id");
 
-		assertEquals(2, result.size());
-		assertEquals("john", result.get(0).getUsername());
-		assertEquals("jane", result.get(1).getUsername());
+		assertEquals(0, page.getItems().size());
+		assertNull(page.getNextCursor());
+		verify(userRepository, never()).findRoleNamesByUserIds(Mockito.any());
+	}
+
+	@Test
+	void getUsers_shouldRejectUnknownSortAndForeignCursor() {
+		String usernameCursor = UserSort.USERNAME_ASC.encodeCursor(row(5, "mike"));
 
-		verify(userRepository, times(1)).findAll();
+		assertThrows(InvalidRequestException.class, () -> userService.getUsers(null, 10, "email"));
+		assertThrows(InvalidRequestException.class, () -> userService.getUsers(usernameCursor, 10, "id"));
+		assertThrows(InvalidRequestException.class, () -> userService.getUsers("not base64!", 10, "id"));
+		verifyNoInteractions(userRepository);
 	}
 
 	// ===== getUserByUsername =====
@@ -76,6 +143,19 @@ class UserServiceTest {
 		verify(userRepository, times(1)).findByUsername("john");
 	}
 
+	@Test
+	void getUserByUsername_shouldNotFillVersionCache() {
+		User mockUser = User.builder().id(1).username("john").version(3L).build();
+		when(userRepository.findByUsername("john")).thenReturn(Optional.of(mockUser));
+		when(userRepository.findVersionByUsername("john")).thenReturn(Optional.of(4L));
+
+		userService.getUserByUsername("john");
+
+		// version doc o profile co the da cu (update + evict xen giua): cache chi lay tu DB hoac tu ghi
+		assertEquals(4L, userService.getUserVersion("john"));
+		verify(userRepository, times(1)).findVersionByUsername("john");
+	}
+
 	@Test
 	void getUserByUsername_shouldThrowIfNotFound() {
 		when(userRepository.findByUsername("missing")).thenReturn(Optional.empty());
@@ -85,50 +165,160 @@ class UserServiceTest {
 		verify(userRepository, times(1)).findByUsername("missing");
 	}
 
-	// ===== updateUser =====
+	// ===== getUserVersion =====
 	@Test
-	void updateUser_shouldUpdateAndReturnUserResponse() {
-		Role userRole = Role.builder().id(1).roleName("USER").build();
-		User mockUser = User.builder().id(1).username("john").fullname("Old Name").email("old@example.com")
-				.roles(List.of(userRole)).build();
+	void getUserVersion_shouldQueryOnceThenServeFromCache() {
+		when(userRepository.findVersionByUsername("john")).thenReturn(Optional.of(3L));
+
+		assertEquals(3L, userService.getUserVersion("john"));
+		assertEquals(3L, userService.getUserVersion("john"));
 
+		verify(userRepository, times(1)).findVersionByUsername("john");
+	}
+
+	@Test
+	void getUserVersion_shouldNotKeepVersionReadBeforeConcurrentEviction() throws Exception {
+		// Setup: doc DB tra version 3, trong luc do update khac commit (v4) va user.invalidated toi
+		CountDownLatch loading = new CountDownLatch(1);
+		when(userRepository.findVersionByUsername("john")).thenAnswer(invocation -> {
+			loading.countDown();
+			Thread.sleep(100);
+			return Optional.of(3L);
+		}).thenReturn(Optional.of(4L));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> read = executor.submit(() -> userService.getUserVersion("john"));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+			// Execute: evict den giua luc doc DB va luc ghi cache
+			userVersionCache.evict("john");
+
+			assertEquals(3L, read.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Verify: version cu khong con trong cache
+		assertEquals(4L, userService.getUserVersion("john"));
+	}
+
+	@Test
+	void getUserVersion_shouldFollowUpdatesAndEvictOnDelete() {
+		UpdateUserRequest update = new UpdateUserRequest();
+		update.setFullName("New Name");
+		when(userRepository.updateProfile("john", "New Name", null, null))
+				.thenReturn(Optional.of(profileRow(1, "john", "john@example.com", "New Name", 8L, "USER")));
+		User mockUser = User.builder().id(1).username("john").version(8L).build();
+		when(userRepository.findByUsername("john")).thenReturn(Optional.of(mockUser));
+		when(userRepository.findVersionByUsername("john")).thenReturn(Optional.empty());
+
+		userService.updateUser("john", update, null);
+		assertEquals(8L, userService.getUserVersion("john"));
+		userService.deleteUser("john");
+
+		// update ghi version moi vao cache, delete xoa -> lan doc sau query DB
+		assertNull(userService.getUserVersion("john"));
+		verify(userRepository, times(1)).findVersionByUsername("john");
+	}
+
+	// ===== updateUser =====
+	@Test
+	void updateUser_shouldUpdateInOneStatementAndReturnUserResponse() {
 		UpdateUserRequest update = new UpdateUserRequest();
 		update.setFullName("New Name");
 		update.setEmail("new@example.com");
 
-		when(userRepository.findByUsername("john")).thenReturn(Optional.of(mockUser));
-		when(userRepository.findByEmail("new@example.com")).thenReturn(Optional.empty());
-		when(userRepository.save(Mockito.any(User.class))).thenAnswer(i -> i.getArgument(0));
+		when(userRepository.updateProfile("john", "New Name", "new@example.com", 3L))
+				.thenReturn(Optional.of(profileRow(1, "john", "new@example.com", "New Name", 4L, "ADMIN,USER")));
 
-		UserResponse result = userService.updateUser("john", update);
+		UserResponse result = userService.updateUser("john", update, 3L);
 
 		assertEquals("New Name", result.getFullname());
 		assertEquals("new@example.com", result.getEmail());
+		assertEquals(List.of("ADMIN", "USER"), result.getRole());
+		assertEquals(4L, result.getVersion());
 
-		verify(userRepository, times(1)).findByUsername("john");
-		verify(userRepository, times(1)).findByEmail("new@example.com");
-		verify(userRepository, times(1)).save(mockUser);
+		// khong load entity, khong kiem tra email rieng, khong save
+		verify(userRepository, times(1)).updateProfile("john", "New Name", "new@example.com", 3L);
+		verify(userRepository, never()).findByUsername(Mockito.any());
+		verify(userRepository, never()).save(Mockito.any());
+		verify(userDetailsCache, times(1)).evict("john");
+		verify(invalidationProducer, times(1)).sendUserInvalidated("john", "UPDATED");
+		ArgumentCaptor<UserStateEvent> state = ArgumentCaptor.forClass(UserStateEvent.class);
+		verify(userStateProducer, times(1)).publish(state.capture());
+		assertEquals(1, state.getValue().getUserId());
+		assertEquals("new@example.com", state.getValue().getEmail());
+		assertEquals(List.of("ADMIN", "USER"), state.getValue().getRoleNames());
+	}
+
+	@Test
+	void updateUser_shouldLeaveBlankFieldsUnchanged() {
+		UpdateUserRequest update = new UpdateUserRequest();
+		update.setFullName("  ");
+		update.setEmail("new@example.com");
+
+		when(userRepository.updateProfile("john", null, "new@example.com", null))
+				.thenReturn(Optional.of(profileRow(1, "john", "new@example.com", "Old Name", 1L, null)));
+
+		UserResponse result = userService.updateUser("john", update, null);
+
+		assertEquals("Old Name", result.getFullname());
+		assertEquals(List.of(), result.getRole());
 	}
 
 	@Test
 	void updateUser_shouldThrowIfEmailExistsForAnotherUser() {
-		Role userRole = Role.builder().id(1).roleName("USER").build();
-		User mockUser = User.builder().id(1).username("john").email("old@example.com").fullname("John Doe")
-				.roles(List.of(userRole)).build();
-		User existingUser = User.builder().id(2).username("jane").email("new@example.com").roles(List.of(userRole))
-				.build();
+		UpdateUserRequest update = new UpdateUserRequest();
+		update.setEmail("new@example.com");
+
+		when(userRepository.updateProfile("john", null, "new@example.com", null)).thenReturn(Optional.empty());
+		when(userRepository.findVersionByUsername("john")).thenReturn(Optional.of(2L));
+		when(userRepository.existsByEmailIgnoreCaseAndUsernameNot("new@example.com", "john")).thenReturn(true);
 
+		assertThrows(UserAlreadyExistException.class, () -> userService.updateUser("john", update, null));
+
+		verify(invalidationProducer, never()).sendUserInvalidated(Mockito.any(), Mockito.any());
+		verifyNoInteractions(userStateProducer);
+	}
+
+	@Test
+	void updateUser_shouldMapUniqueViolationToAlreadyExists() {
 		UpdateUserRequest update = new UpdateUserRequest();
 		update.setEmail("new@example.com");
 
-		when(userRepository.findByUsername("john")).thenReturn(Optional.of(mockUser));
-		when(userRepository.findByEmail("new@example.com")).thenReturn(Optional.of(existingUser));
+		when(userRepository.updateProfile("john", null, "new@example.com", null))
+				.thenThrow(new DataIntegrityViolationException("users_email_key"));
 
-		assertThrows(UserNotFoundException.class, () -> userService.updateUser("john", update));
+		assertThrows(UserAlreadyExistException.class, () -> userService.updateUser("john", update, null));
 
-		verify(userRepository, times(1)).findByUsername("john");
-		verify(userRepository, times(1)).findByEmail("new@example.com");
-		verify(userRepository, never()).save(Mockito.any());
+		verifyNoInteractions(userStateProducer);
+	}
+
+	@Test
+	void updateUser_shouldThrowConflictWhenVersionIsStale() {
+		UpdateUserRequest update = new UpdateUserRequest();
+		update.setFullName("New Name");
+
+		when(userRepository.updateProfile("john", "New Name", null, 3L)).thenReturn(Optional.empty());
+		when(userRepository.findVersionByUsername("john")).thenReturn(Optional.of(5L));
+
+		UserVersionConflictException ex = assertThrows(UserVersionConflictException.class,
+				() -> userService.updateUser("john", update, 3L));
+
+		assertEquals(5L, ex.getCurrentVersion());
+		verify(userRepository, never()).existsByEmailIgnoreCaseAndUsernameNot(Mockito.any(), Mockito.any());
+		verifyNoInteractions(userStateProducer);
+	}
+
+	@Test
+	void updateUser_shouldThrowIfUserNotFound() {
+		UpdateUserRequest update = new UpdateUserRequest();
+		update.setFullName("New Name");
+
+		when(userRepository.updateProfile("ghost", "New Name", null, null)).thenReturn(Optional.empty());
+		when(userRepository.findVersionByUsername("ghost")).thenReturn(Optional.empty());
+
+		assertThrows(UserNotFoundException.class, () -> userService.updateUser("ghost", update, null));
 	}
 
 	// ===== deleteUser =====
@@ -144,6 +334,9 @@ class UserServiceTest {
 
 		verify(userRepository, times(1)).findByUsername("john");
 		verify(userRepository, times(1)).delete(mockUser);
+		verify(userDetailsCache, times(1)).evict("john");
+		verify(invalidationProducer, times(1)).sendUserInvalidated("john", "DELETED");
+		verify(userStateProducer, times(1)).publishDeleted(1);
 	}
 
 	@Test
@@ -169,5 +362,50 @@ class UserServiceTest {
 
 		verify(userRepository, times(1)).findByUsername("john");
 		verify(userRepository, times(1)).delete(mockUser);
+		verifyNoInteractions(userStateProducer);
+	}
+
+	private static UserSummaryRow row(int id, String username) {
+		return new UserSummaryRow(id, username, username, username + "@example.com", false);
+	}
+
+	private static UserProfileRow profileRow(Integer id, String username, String email, String fullname, Long version,
+			String roleNames) {
+		return new UserProfileRow() {
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public String getUsername() {
+				return username;
+			}
+
+			@Override
+			public String getEmail() {
+				return email;
+			}
+
+			@Override
+			public String getFullname() {
+				return fullname;
+			}
+
+			@Override
+			public Boolean getDeleted() {
+				return false;
+			}
+
+			@Override
+			public Long getVersion() {
+				return version;
+			}
+
+			@Override
+			public String getRoleNames() {
+				return roleNames;
+			}
+		};
 	}
 }
@@ -0,0 +1,173 @@
+package com.r2s.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.r2s.core.constant.KafkaTopics;
+import com.r2s.core.dto.UserStateEvent;
+import com.r2s.user.kafka.UserStateBootstrap;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class UserStateBootstrapTest {
+	private static final TopicPartition PARTITION = new TopicPartition(KafkaTopics.USER_STATE, 0);
+
+	@Mock
+	private ConsumerFactory<Object, Object> consumerFactory;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Spy
+	private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private UserStateBootstrap bootstrap;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void start_shouldStageLatestStatePerUserAndInsertInOneTransaction() {
+		// Setup: user 1 cap nhat 2 lan, user 2 bi xoa (tombstone), user 3 moi
+		when(jdbcTemplate.queryForObject("select exists (select 1 from users)", Boolean.class)).thenReturn(false);
+		when(jdbcTemplate.update(any(String.class))).thenReturn(2);
+		MockConsumer<Object, Object> consumer = this.consumerWith(record(0, "1", state(1, "alice", "USER")),
+				record(1, "2", state(2, "bob", "USER")), record(2, "1", state(1, "alice.new", "USER", "ADMIN")),
+				record(3, "2", null), record(4, "3", state(3, "carol", "USER")));
+
+		// Execute
+		bootstrap.start();
+
+		// Verify: 1 lan ghi staging cho ca batch, moi user chi giu trang thai cuoi
+		ArgumentCaptor<List<Object[]>> upserts = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List<Object[]>> deletes = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).execute(contains("create temporary table user_state_staging"));
+		verify(jdbcTemplate).batchUpdate(contains("insert into user_state_staging"), upserts.capture());
+		verify(jdbcTemplate).batchUpdate(contains("delete from user_state_staging"), deletes.capture());
+		assertThat(upserts.getValue()).hasSize(2);
+		assertThat(upserts.getValue().get(0)).containsExactly(1, "alice.new", "alice.new@example.com", "alice.new",
+				false, "USER,ADMIN");
+		assertThat(upserts.getValue().get(1)[0]).isEqualTo(3);
+		assertThat(deletes.getValue()).hasSize(1);
+		assertThat(deletes.getValue().get(0)).containsExactly(2);
+		verify(jdbcTemplate).update(contains("insert into users"));
+		verify(jdbcTemplate).update(contains("insert into user_role"));
+		verify(jdbcTemplate).queryForObject(contains("setval"), eq(Long.class));
+		verify(transactionTemplate, times(1)).execute(any());
+		assertEquals(5, meterRegistry.counter("user.state.bootstrap.records").count());
+		assertThat(consumer.closed()).isTrue();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void start_shouldFlushStagingInBatches() {
+		// Setup
+		ReflectionTestUtils.setField(bootstrap, "batchSize", 2);
+		when(jdbcTemplate.queryForObject("select exists (select 1 from users)", Boolean.class)).thenReturn(false);
+		this.consumerWith(record(0, "1", state(1, "a")), record(1, "2", state(2, "b")), record(2, "3", state(3, "c")),
+				record(3, "4", state(4, "d")), record(4, "5", state(5, "e")));
+
+		// Execute
+		bootstrap.start();
+
+		// Verify: 5 record, batch 2 -> 3 lan ghi staging (2 + 2 + 1), khong mat user nao
+		ArgumentCaptor<List<Object[]>> upserts = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate, times(3)).batchUpdate(contains("insert into user_state_staging"), upserts.capture());
+		assertThat(upserts.getAllValues().stream().flatMap(List::stream).map(row -> row[0]))
+				.containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+	}
+
+	@Test
+	void start_shouldSkipWhenUsersTableIsNotEmpty() {
+		when(jdbcTemplate.queryForObject("select exists (select 1 from users)", Boolean.class)).thenReturn(true);
+
+		bootstrap.start();
+
+		verify(consumerFactory, never()).createConsumer(any(), any(), any(), any(Properties.class));
+		verify(jdbcTemplate, never()).execute(any(String.class));
+		assertThat(bootstrap.isRunning()).isTrue();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void start_shouldLoadNothingWhenBrokerDoesNotAnswer() {
+		// Setup
+		when(jdbcTemplate.queryForObject("select exists (select 1 from users)", Boolean.class)).thenReturn(false);
+		Consumer<Object, Object> consumer = mock(Consumer.class);
+		when(consumer.partitionsFor(KafkaTopics.USER_STATE)).thenThrow(new TimeoutException("metadata"));
+		when(consumerFactory.createConsumer(eq("user-state-bootstrap"), isNull(), isNull(), any(Properties.class)))
+				.thenReturn(consumer);
+
+		// Execute
+		bootstrap.start();
+
+		// Verify: khong nap gi, khoi dong tiep
+		verify(jdbcTemplate, never()).update(any(String.class));
+		verify(consumer).close();
+		assertEquals(0, meterRegistry.counter("user.state.bootstrap.records").count());
+		assertThat(bootstrap.isRunning()).isTrue();
+	}
+
+	private MockConsumer<Object, Object> consumerWith(ConsumerRecord<Object, Object>... records) {
+		MockConsumer<Object, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+		Node node = new Node(0, "localhost", 9092);
+		consumer.updatePartitions(KafkaTopics.USER_STATE,
+				List.of(new PartitionInfo(KafkaTopics.USER_STATE, 0, node, new Node[] { node }, new Node[] { node })));
+		consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+		consumer.updateEndOffsets(Map.of(PARTITION, (long) records.length));
+		// moi lan poll tra ve 1 record
+		for (ConsumerRecord<Object, Object> record : records) {
+			consumer.schedulePollTask(() -> consumer.addRecord(record));
+		}
+		when(consumerFactory.createConsumer(eq("user-state-bootstrap"), isNull(), isNull(), any(Properties.class)))
+				.thenReturn(consumer);
+		return consumer;
+	}
+
+	private static ConsumerRecord<Object, Object> record(long offset, String key, UserStateEvent value) {
+		return new ConsumerRecord<>(KafkaTopics.USER_STATE, 0, offset, key, value);
+	}
+
+	private static UserStateEvent state(int userId, String username, String... roles) {
+		return UserStateEvent.builder().userId(userId).username(username).email(username + "@example.com")
+				.fullName(username).roleNames(List.of(roles)).build();
+	}
+}
@@ -0,0 +1,100 @@
+package com.r2s.user.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the Flyway migrations from core to an empty PostgreSQL, loads enough
+ * rows for the planner to prefer indexes over sequential scans, and checks the
+ * plans of the hot lookups. The SQL mirrors what Hibernate generates for
+ * {@code UserRepository.findCredentialsByUsername} (login) and
+ * {@code findByUsername} with its roles entity graph (profile).
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigrationExplainTest {
+	private static final int USERS = 20_000;
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void migrateAndSeed() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(),
+				postgres.getPassword());
+		long started = System.nanoTime();
+		MigrateResult result = Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load()
+				.migrate();
+		log.info("Applied {} migrations in {} ms", result.migrationsExecuted, (System.nanoTime() - started) / 1_000_000);
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update("insert into roles (id, role_name, is_active) values (1, 'USER', true), (2, 'ADMIN', true)");
+		jdbcTemplate.update("insert into users (id, username, email, fullname, password, deleted) "
+				+ "select g, 'user' || g, 'User' || g || '@Example.com', 'User ' || g, 'N/A', g % 50 = 0 "
+				+ "from generate_series(1, ?) g", USERS);
+		jdbcTemplate.update("insert into user_role (user_id, role_id) select g, case when g % 100 = 0 then 2 else 1 end "
+				+ "from generate_series(1, ?) g", USERS);
+		jdbcTemplate.execute("analyze");
+	}
+
+	@Test
+	void loginLookup_shouldUseUsernameAndUserRoleIndexes() {
+		// roles chi co 2 dong: seq scan tren roles la lua chon dung cua planner
+		String plan = explain("select u.username, u.password, u.deleted, r.role_name from users u "
+				+ "left join user_role ur on u.id = ur.user_id left join roles r on r.id = ur.role_id "
+				+ "where u.username = 'user1234'");
+
+		assertThat(plan).contains("users_username_key").contains("user_role_user_id_idx")
+				.doesNotContain("Seq Scan on users").doesNotContain("Seq Scan on user_role");
+	}
+
+	@Test
+	void profileLookup_shouldUseUsernameAndUserRoleIndexes() {
+		String plan = explain("select u.id, u.deleted, u.email, u.fullname, u.password, u.username, r.id, r.role_name "
+				+ "from users u left join (user_role ur join roles r on r.id = ur.role_id) on u.id = ur.user_id "
+				+ "where u.username = 'user1234'");
+
+		assertThat(plan).contains("users_username_key").contains("user_role_user_id_idx")
+				.doesNotContain("Seq Scan on users").doesNotContain("Seq Scan on user_role");
+	}
+
+	@Test
+	void caseInsensitiveChecks_shouldUseLowerIndexes() {
+		String username = explain("select count(*) > 0 from users u where lower(u.username) = lower('USER1234')");
+		String email = explain("select count(*) > 0 from users u "
+				+ "where lower(u.email) = lower('user1234@example.com') and u.username <> 'user1'");
+
+		assertThat(username).contains("users_username_lower_idx");
+		assertThat(email).contains("users_email_lower_idx");
+	}
+
+	@Test
+	void migration_shouldAlignIdSequencesPastExistingRows() {
+		// V2 chay tren bang rong: sequence da duoc goi, khoi pooled dau tien khong bat dau o gia tri dac biet
+		Boolean called = jdbcTemplate.queryForObject("select is_called from users_seq", Boolean.class);
+
+		assertThat(called).isTrue();
+	}
+
+	private static String explain(String sql) {
+		List<String> lines = jdbcTemplate.queryForList("explain " + sql, String.class);
+		String plan = String.join("\n", lines);
+		log.info("EXPLAIN {}\n{}", sql, plan);
+		return plan;
+	}
+}
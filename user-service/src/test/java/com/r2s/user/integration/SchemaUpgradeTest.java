@@ -0,0 +1,80 @@
+package com.r2s.user.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Upgrade path of a database created by {@code ddl-auto=update} before the
+ * Flyway migrations existed: only {@code users}, {@code roles} and
+ * {@code user_role}, ids from identity columns. Flyway runs with the same
+ * baseline settings as the services, so V1 is skipped and every later
+ * migration has to work on that schema.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaUpgradeTest {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static JdbcTemplate jdbcTemplate;
+	private static MigrateResult result;
+
+	@BeforeAll
+	static void createPreFlywaySchemaAndMigrate() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(),
+				postgres.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		// DDL Hibernate 6 sinh ra cho User/Role (id IDENTITY) truoc khi co migration
+		jdbcTemplate.execute("create table users (id integer generated by default as identity, "
+				+ "deleted boolean default false not null, email varchar(255) unique, fullname varchar(255), "
+				+ "password varchar(255) not null, username varchar(255) not null unique, primary key (id))");
+		jdbcTemplate.execute("create table roles (id integer generated by default as identity, "
+				+ "description varchar(255), is_active boolean default true not null, "
+				+ "role_name varchar(255) not null unique, primary key (id))");
+		jdbcTemplate.execute("create table user_role (user_id integer not null references users (id), "
+				+ "role_id integer not null references roles (id))");
+		jdbcTemplate.update("insert into roles (role_name) values ('USER'), ('ADMIN')");
+		jdbcTemplate.update("insert into users (username, email, password) "
+				+ "select 'user' || g, 'user' || g || '@example.com', 'N/A' from generate_series(1, 120) g");
+		jdbcTemplate.update("insert into user_role (user_id, role_id) select id, 1 from users");
+
+		// cung cau hinh baseline voi spring.flyway.* cua cac service
+		result = Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").baselineOnMigrate(true)
+				.baselineVersion("1").load().migrate();
+	}
+
+	@Test
+	void migrate_shouldSkipBaselineAndApplyLaterMigrations() {
+		assertThat(result.success).isTrue();
+		assertThat(result.migrations).extracting(migration -> migration.version).doesNotContain("1")
+				.contains("1.1", "2");
+	}
+
+	@Test
+	void migrate_shouldCreateTablesMissingFromPreFlywaySchema() {
+		assertThat(jdbcTemplate.queryForObject("select count(*) from outbox_events where parked_at is null",
+				Integer.class)).isZero();
+		assertThat(jdbcTemplate.queryForObject("select count(*) from processed_events", Integer.class)).isZero();
+		assertThat(jdbcTemplate.queryForObject("select to_regclass('processed_events_processed_at_idx') is not null",
+				Boolean.class)).isTrue();
+	}
+
+	@Test
+	void migrate_shouldKeepExistingRowsAndMoveSequencesPastThem() {
+		assertThat(jdbcTemplate.queryForObject("select count(*) from users where version = 0", Integer.class))
+				.isEqualTo(120);
+		assertThat(jdbcTemplate.queryForObject("select last_value from users_seq", Long.class))
+				.isGreaterThanOrEqualTo(120);
+		assertThat(jdbcTemplate.queryForObject("select last_value from roles_seq", Long.class))
+				.isGreaterThanOrEqualTo(2);
+	}
+}
@@ -6,6 +6,7 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -150,8 +151,9 @@ class UserControllerIntegrationTest {
 				.header("Authorization", bearerTokenFor(adminUser)))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.code").value("OK"))
-				.andExpect(jsonPath("$.data", hasSize(2)))
-				.andExpect(jsonPath("$.data[0].username", notNullValue()));
+				.andExpect(jsonPath("$.data.items", hasSize(2)))
+				.andExpect(jsonPath("$.data.items[0].username", notNullValue()))
+				.andExpect(jsonPath("$.data.nextCursor").doesNotExist());
 	}
 
 	@Test
@@ -171,6 +173,7 @@ class UserControllerIntegrationTest {
 		mockMvc.perform(put("/users/me")
 				.contentType(MediaType.APPLICATION_JSON)
 				.header("Authorization", bearerTokenFor(normalUser))
+				.header("If-Match", "*")
 				.content(objectMapper.writeValueAsString(request)))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.data.fullname").value("John Updated"))
@@ -182,6 +185,43 @@ class UserControllerIntegrationTest {
 		org.assertj.core.api.Assertions.assertThat(updated.getEmail()).isEqualTo("updated@example.com");
 	}
 
+	@Test
+	void updateMyProfile_shouldBumpVersionAndRejectStaleIfMatch() throws Exception {
+		User before = userRepository.findByUsername("john").orElseThrow();
+		String etag = "\"" + before.getVersion() + "\"";
+		UpdateUserRequest request = new UpdateUserRequest("john.new@example.com", "John New");
+
+		mockMvc.perform(put("/users/me")
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("Authorization", bearerTokenFor(normalUser))
+				.header("If-Match", etag)
+				.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"" + (before.getVersion() + 1) + "\""));
+
+		// cung ETag cu lan 2 -> profile da doi, 412
+		mockMvc.perform(put("/users/me")
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("Authorization", bearerTokenFor(normalUser))
+				.header("If-Match", etag)
+				.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isPreconditionFailed())
+				.andExpect(jsonPath("$.code").value("PRECONDITION_FAILED"));
+	}
+
+	@Test
+	void updateMyProfile_shouldReturnConflictWhenEmailBelongsToAnotherUser() throws Exception {
+		UpdateUserRequest request = new UpdateUserRequest(adminUser.getEmail().toUpperCase(), "John Doe");
+
+		mockMvc.perform(put("/users/me")
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("Authorization", bearerTokenFor(normalUser))
+				.header("If-Match", "*")
+				.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.code").value("ALREADY_EXIT"));
+	}
+
 	@Test
 	void deleteUser_shouldRemoveUserFromDatabase() throws Exception {
 		User temp = userRepository.save(User.builder()